@@ -99,6 +99,34 @@ public final class Configuration<T> {
    */
   public static final String APGAS_ELASTIC_ALLATONCE_PROPERTY = "apgas.elastic.allatonce";
 
+  /** Possible value for configuration {@link #APGAS_FINISH_HELP_PROPERTY}. */
+  public static final String APGAS_FINISH_HELP_FINISH = "finish";
+
+  /** Possible value for configuration {@link #APGAS_FINISH_HELP_PROPERTY}. */
+  public static final String APGAS_FINISH_HELP_ANY = "any";
+
+  /**
+   * Property {@value #APGAS_FINISH_HELP_PROPERTY} selects the tasks a worker thread runs while it
+   * waits for a finish to terminate (String property). Possible values are:
+   *
+   * <ul>
+   *   <li>finish: (default), the worker only runs the tasks of the same finish found on top of its
+   *       own queue
+   *   <li>any: the worker runs any task from its own queue or stolen from other workers, which
+   *       avoids adding compensation threads to the pool for nested finish blocks
+   * </ul>
+   */
+  public static final String APGAS_FINISH_HELP_PROPERTY = "apgas.finish.help";
+
+  /**
+   * Property {@value #APGAS_FINISH_HELP_DEPTH_PROPERTY} bounds the number of nested finish blocks
+   * a worker thread helps in with the "{@code any}" policy (Integer property).
+   *
+   * <p>A worker waiting in deeper finish blocks falls back to the "{@code finish}" policy to bound
+   * its stack depth. Defaults to 64.
+   */
+  public static final String APGAS_FINISH_HELP_DEPTH_PROPERTY = "apgas.finish.help.depth";
+
   /**
    * Property {@value #APGAS_HOSTFILE_PROPERTY} specifies a filename that lists hosts on which to
    * launch places (String property).
@@ -190,6 +218,16 @@ public final class Configuration<T> {
    */
   public static final String APGAS_RESILIENT_PROPERTY = "apgas.resilient";
 
+  /**
+   * Property {@value #APGAS_RESILIENT_FINISH_RETENTION_PROPERTY} specifies how long, in seconds,
+   * the state of a completed resilient finish is retained in the resilient store if it is not
+   * collected by its home place (Integer property).
+   *
+   * <p>Defaults to 3600. A value of 0 or less disables the eviction of completed finish states.
+   */
+  public static final String APGAS_RESILIENT_FINISH_RETENTION_PROPERTY =
+      "apgas.resilient.finish.retention";
+
   /**
    * Property {@value #APGAS_THREADS_PROPERTY} specifies the desired level of parallelism (Integer
    * property).
@@ -199,6 +237,27 @@ public final class Configuration<T> {
    */
   public static final String APGAS_THREADS_PROPERTY = "apgas.threads";
 
+  /**
+   * Property {@value #APGAS_THREADS_ADAPTIVE_PROPERTY} sizes the worker pool of each place from the
+   * cores of its host divided by the number of places running on the host (Boolean property).
+   *
+   * <p>The pool is sized once all the initial places have joined, and resized when places are
+   * added to or removed from the host. {@value #APGAS_THREADS_PROPERTY} is ignored if set.
+   * Resizing requires Java 21 or greater; the pool keeps its initial size on older releases.
+   * Defaults to "{@code false}".
+   */
+  public static final String APGAS_THREADS_ADAPTIVE_PROPERTY = "apgas.threads.adaptive";
+
+  /**
+   * Property {@value #APGAS_VIRTUAL_THREADS_PROPERTY} runs tasks on virtual threads instead of the
+   * worker pool (Boolean property).
+   *
+   * <p>Blocking constructs such as {@code finish} and {@code at} then park the virtual thread
+   * instead of adding compensation threads to the pool. Requires Java 21 or greater; ignored
+   * otherwise. Defaults to "{@code false}".
+   */
+  public static final String APGAS_VIRTUAL_THREADS_PROPERTY = "apgas.virtual.threads";
+
   /** This Property sets the name of the hazelcast instance. */
   public static final String HAZELCAST_NAME_PROPERTY = "hazelcast.name";
 
@@ -228,6 +287,14 @@ public final class Configuration<T> {
   public static final Configuration<Boolean> CONFIG_APGAS_ELASTIC_ALLATONCE =
       new Configuration<>(APGAS_ELASTIC_ALLATONCE_PROPERTY, false, Boolean.class);
 
+  /** Configuration object for {@link #APGAS_FINISH_HELP_PROPERTY} */
+  public static final Configuration<String> CONFIG_APGAS_FINISH_HELP =
+      new Configuration<>(APGAS_FINISH_HELP_PROPERTY, APGAS_FINISH_HELP_FINISH, String.class);
+
+  /** Configuration object for {@link #APGAS_FINISH_HELP_DEPTH_PROPERTY} */
+  public static final Configuration<Integer> CONFIG_APGAS_FINISH_HELP_DEPTH =
+      new Configuration<>(APGAS_FINISH_HELP_DEPTH_PROPERTY, 64, Integer.class);
+
   /** Configuration object for {@link #APGAS_HOSTFILE_PROPERTY} */
   public static final Configuration<String> CONFIG_APGAS_HOSTFILE =
       new Configuration<>(APGAS_HOSTFILE_PROPERTY, String.class);
@@ -286,11 +353,23 @@ public final class Configuration<T> {
   public static final Configuration<Boolean> CONFIG_APGAS_RESILIENT =
       new Configuration<>(APGAS_RESILIENT_PROPERTY, false, Boolean.class);
 
+  /** Configuration object for {@link #APGAS_RESILIENT_FINISH_RETENTION_PROPERTY} */
+  public static final Configuration<Integer> CONFIG_APGAS_RESILIENT_FINISH_RETENTION =
+      new Configuration<>(APGAS_RESILIENT_FINISH_RETENTION_PROPERTY, 3600, Integer.class);
+
   /** Configuration object for {@link #APGAS_THREADS_PROPERTY} */
   public static final Configuration<Integer> CONFIG_APGAS_THREADS =
       new Configuration<>(
           APGAS_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors(), Integer.class);
 
+  /** Configuration object for {@link #APGAS_THREADS_ADAPTIVE_PROPERTY} */
+  public static final Configuration<Boolean> CONFIG_APGAS_THREADS_ADAPTIVE =
+      new Configuration<>(APGAS_THREADS_ADAPTIVE_PROPERTY, false, Boolean.class);
+
+  /** Configuration object for {@link #APGAS_VIRTUAL_THREADS_PROPERTY} */
+  public static final Configuration<Boolean> CONFIG_APGAS_VIRTUAL_THREADS =
+      new Configuration<>(APGAS_VIRTUAL_THREADS_PROPERTY, false, Boolean.class);
+
   /** Configuration for property {@value #APGAS_VERBOSE_LAUNCHER_PROPERTY} */
   public static final Configuration<Boolean> CONFIG_APGAS_VERBOSE_LAUNCHER =
       new Configuration<>(APGAS_VERBOSE_LAUNCHER_PROPERTY, false, Boolean.class);
@@ -364,9 +443,14 @@ public final class Configuration<T> {
     final List<Configuration<?>> allConfigs = new ArrayList<>();
     allConfigs.add(CONFIG_APGAS_PLACES);
     allConfigs.add(CONFIG_APGAS_THREADS);
+    allConfigs.add(CONFIG_APGAS_THREADS_ADAPTIVE);
     allConfigs.add(CONFIG_APGAS_IMMEDIATE_THREADS);
     allConfigs.add(CONFIG_APGAS_MAX_THREADS);
+    allConfigs.add(CONFIG_APGAS_VIRTUAL_THREADS);
+    allConfigs.add(CONFIG_APGAS_FINISH_HELP);
+    allConfigs.add(CONFIG_APGAS_FINISH_HELP_DEPTH);
     allConfigs.add(CONFIG_APGAS_RESILIENT);
+    allConfigs.add(CONFIG_APGAS_RESILIENT_FINISH_RETENTION);
     allConfigs.add(CONFIG_APGAS_BACKUPCOUNT);
     allConfigs.add(CONFIG_APGAS_MASTER);
     allConfigs.add(CONFIG_APGAS_HOSTFILE);
@@ -409,9 +493,14 @@ public final class Configuration<T> {
     final List<Configuration<?>> allConfigs = new ArrayList<>();
     allConfigs.add(CONFIG_APGAS_PLACES);
     allConfigs.add(CONFIG_APGAS_THREADS);
+    allConfigs.add(CONFIG_APGAS_THREADS_ADAPTIVE);
     allConfigs.add(CONFIG_APGAS_IMMEDIATE_THREADS);
     allConfigs.add(CONFIG_APGAS_MAX_THREADS);
+    allConfigs.add(CONFIG_APGAS_VIRTUAL_THREADS);
+    allConfigs.add(CONFIG_APGAS_FINISH_HELP);
+    allConfigs.add(CONFIG_APGAS_FINISH_HELP_DEPTH);
     allConfigs.add(CONFIG_APGAS_RESILIENT);
+    allConfigs.add(CONFIG_APGAS_RESILIENT_FINISH_RETENTION);
     allConfigs.add(CONFIG_APGAS_BACKUPCOUNT);
     allConfigs.add(CONFIG_APGAS_MASTER);
     allConfigs.add(CONFIG_APGAS_HOSTFILE);
@@ -18,6 +18,7 @@ import apgas.impl.elastic.GetLoad;
 import apgas.impl.elastic.MalleableHandler;
 import com.hazelcast.core.Member;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -47,6 +48,54 @@ public final class Constructs {
     GlobalRuntime.getRuntimeImpl().asyncAt(p, f);
   }
 
+  /**
+   * Submits a new task to the global runtime to be run at {@link Place} {@code p} with body {@code
+   * f} and the given scheduling priority and returns immediately.
+   *
+   * @param p the place of execution
+   * @param priority the priority of the task
+   * @param f the function to run
+   */
+  public static void asyncAt(Place p, Priority priority, SerializableJob f) {
+    GlobalRuntime.getRuntimeImpl().asyncAt(p, priority, f);
+  }
+
+  /**
+   * Submits a new task to the global runtime to be run at each {@link Place} of {@code places} with
+   * body {@code f} and returns immediately.
+   *
+   * <p>The tasks are spawned along a spanning tree of the places rather than one by one from the
+   * current place, so that the broadcast takes a logarithmic number of message hops. All the tasks
+   * are tracked by the enclosing finish.
+   *
+   * @param places the places of execution, with no repetition
+   * @param f the function to run
+   */
+  public static void asyncAtAll(Collection<? extends Place> places, SerializableJob f) {
+    GlobalRuntime.getRuntimeImpl().asyncAtAll(places, f);
+  }
+
+  /**
+   * Submits a new task to the global runtime with body {@code f} and returns immediately. The
+   * runtime runs the task locally unless the local pool is busy and another place is known to be
+   * less loaded, using the loads the places report with their task messages.
+   *
+   * @param f the function to run
+   */
+  public static void asyncAny(SerializableJob f) {
+    GlobalRuntime.getRuntimeImpl().asyncAny(f);
+  }
+
+  /**
+   * Submits new tasks to the global runtime and returns immediately. Each task is placed as with
+   * {@link #asyncAny(SerializableJob)} and the tasks assigned to the same place are sent together.
+   *
+   * @param jobs the functions to run
+   */
+  public static void asyncAny(Collection<? extends SerializableJob> jobs) {
+    GlobalRuntime.getRuntimeImpl().asyncAny(jobs);
+  }
+
   /**
    * Forks a new local task to the local pool of the calling worker, with body {@code f} and returns
    * immediately.
@@ -57,6 +106,39 @@ public final class Constructs {
     GlobalRuntime.getRuntimeImpl().asyncFork(f);
   }
 
+  /**
+   * Runs {@code body} for each index in {@code [from, to)} in parallel at the current place and
+   * waits for all the iterations to complete.
+   *
+   * <p>The range is split lazily into tasks as worker threads become idle, so that the loop adapts
+   * to the load of the place without a user-defined chunk size. Exceptions thrown by {@code body}
+   * are collected as in {@link #finish(SerializableJob)}.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @param body the function to run for each index
+   */
+  public static void forEach(long from, long to, SerializableLongConsumer body) {
+    GlobalRuntime.getRuntimeImpl().forEach(from, to, body);
+  }
+
+  /**
+   * Runs {@code body} for each index in {@code [from, to)} in parallel across the given places and
+   * waits for all the iterations to complete.
+   *
+   * <p>Each place gets a contiguous block of the range, in the iteration order of {@code places},
+   * and runs it as {@link #forEach(long, long, SerializableLongConsumer)}.
+   *
+   * @param places the places of execution, with no repetition
+   * @param from the first index
+   * @param to the index after the last index
+   * @param body the function to run for each index
+   */
+  public static void forEach(
+      Collection<? extends Place> places, long from, long to, SerializableLongConsumer body) {
+    GlobalRuntime.getRuntimeImpl().forEach(places, from, to, body);
+  }
+
   /**
    * Evaluates {@code f} at {@link Place} {@code p}, waits for all the tasks transitively spawned by
    * {@code f}, and returns the result.
@@ -193,6 +275,20 @@ public final class Constructs {
     GlobalRuntime.getRuntimeImpl().immediateAsyncAt(p, f);
   }
 
+  /**
+   * Runs {@code f} at {@link Place} {@code p} immediately on the thread receiving it
+   *
+   * <p>This avoids the hand-off to the immediate thread pool for short handlers such as counter
+   * updates or replies to requests. {@code f} must not block since it holds up the delivery of
+   * other messages to {@code p}.
+   *
+   * @param p the place of execution
+   * @param f the function to run
+   */
+  public static void inlineAsyncAt(Place p, SerializableRunnable f) {
+    GlobalRuntime.getRuntimeImpl().inlineAsyncAt(p, f);
+  }
+
   /**
    * Returns the liveness of a place
    *
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas;
+
+/**
+ * The {@link Priority} enum lists the scheduling priorities of tasks submitted with {@link
+ * Constructs#asyncAt(Place, Priority, SerializableJob)}.
+ */
+public enum Priority {
+  /** The priority of regular tasks. */
+  NORMAL,
+
+  /**
+   * The priority of tasks on the critical path. Worker threads run the pending high priority tasks
+   * of their place before starting any normal task.
+   */
+  HIGH
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas;
+
+import java.io.Serializable;
+import java.util.function.BinaryOperator;
+
+/**
+ * A generic serializable functional interface combining two values of the same type.
+ *
+ * <p>The functional method is {@link #apply(Object, Object)}.
+ *
+ * @param <T> the type of the operands and result
+ */
+@FunctionalInterface
+public interface SerializableBinaryOperator<T> extends Serializable, BinaryOperator<T> {}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas;
+
+import java.io.Serializable;
+
+/**
+ * A serializable functional interface with a {@code long} argument and no return value.
+ *
+ * <p>The functional method is {@link #accept(long)}.
+ */
+@FunctionalInterface
+public interface SerializableLongConsumer extends Serializable {
+
+  /**
+   * Runs the function on the given argument or throws an exception if unable to do so.
+   *
+   * @param i the argument
+   * @throws Exception if unable to run the function
+   */
+  void accept(long i) throws Exception;
+}
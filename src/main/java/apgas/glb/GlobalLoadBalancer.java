@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.glb;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.at;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+import static apgas.Constructs.place;
+import static apgas.Constructs.places;
+
+import apgas.Place;
+import apgas.SerializableCallable;
+import apgas.impl.elastic.EvolvingHandler;
+import apgas.impl.elastic.MalleableHandler;
+import apgas.util.PlaceLocalObject;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@link GlobalLoadBalancer} class balances an irregular computation across places using
+ * lifeline-based work stealing.
+ *
+ * <p>Each place holds a {@link TaskQueue} created by a factory function. The computation starts at
+ * the place that created the balancer with an initial {@link TaskBag}. A place that runs out of
+ * tasks steals from random places with inline immediate tasks, then registers with its lifelines
+ * and waits for them to deal it tasks. The computation terminates when all the places are out of
+ * tasks and the results of the task queues are then reduced into a single result.
+ *
+ * <p>A balancer is malleable: its {@link #malleableHandler()} or {@link #evolvingHandler()} adds
+ * new places to the lifeline graph after a grow, and has the leaving places hand off their tasks
+ * and results before a shrink. The handlers may be installed directly or invoked from the handler
+ * of the application.
+ *
+ * <p>A balancer must be used from the place that created it, which must be place 0 if elasticity is
+ * used.
+ *
+ * @param <B> the type of the task bags
+ * @param <R> the type of the result
+ */
+public final class GlobalLoadBalancer<B extends TaskBag, R extends Serializable> {
+
+  /** The default number of tasks to process between two rounds of steal requests. */
+  public static final int DEFAULT_BATCH_SIZE = 511;
+
+  /** The default number of random steal attempts before falling back to the lifelines. */
+  public static final int DEFAULT_RANDOM_STEALS = 1;
+
+  /** The workers of the computation. */
+  private final PlaceWorker<B, R> worker;
+
+  /** The function used to combine the results of the places. */
+  private final BinaryOperator<R> reducer;
+
+  /** The handler of elastic grow and shrink orders. */
+  private final ElasticHandler<B, R> handler;
+
+  /**
+   * Constructs a load balancer over the current places with the default parameters.
+   *
+   * @param factory the function creating the task queue of each place
+   * @param reducer the function combining the results of the places
+   */
+  public GlobalLoadBalancer(
+      SerializableCallable<? extends TaskQueue<B, R>> factory, BinaryOperator<R> reducer) {
+    this(factory, reducer, DEFAULT_BATCH_SIZE, DEFAULT_RANDOM_STEALS);
+  }
+
+  /**
+   * Constructs a load balancer over the current places.
+   *
+   * @param factory the function creating the task queue of each place
+   * @param reducer the function combining the results of the places
+   * @param n the number of tasks to process between two rounds of steal requests
+   * @param w the number of random steal attempts before falling back to the lifelines
+   */
+  public GlobalLoadBalancer(
+      SerializableCallable<? extends TaskQueue<B, R>> factory,
+      BinaryOperator<R> reducer,
+      int n,
+      int w) {
+    if (n < 1 || w < 0) {
+      throw new IllegalArgumentException("invalid load balancing parameters n=" + n + " w=" + w);
+    }
+    final int[] ids = ids(places());
+    this.reducer = reducer;
+    worker = PlaceLocalObject.make(places(), () -> new PlaceWorker<>(factory.call(), n, w, ids));
+    handler = new ElasticHandler<>(worker, factory, n, w);
+  }
+
+  private static int[] ids(List<? extends Place> places) {
+    return places.stream().mapToInt(p -> p.id).toArray();
+  }
+
+  /**
+   * Runs a computation starting with the given tasks and waits for its termination.
+   *
+   * <p>The results of the task queues are not reset between computations. The last result of a
+   * place that left is retained and combined as if the place was still present.
+   *
+   * @param bag the initial tasks
+   * @return the combined results of the task queues of all the places
+   */
+  public R run(B bag) {
+    final PlaceWorker<B, R> w = worker;
+    // places that ran out of tasks in a previous computation are registered with their lifelines
+    // already, the other places look for tasks first
+    finish(
+        () -> {
+          for (final int id : w.places()) {
+            if (id != here().id) {
+              asyncAt(place(id), () -> w.start());
+            }
+          }
+          w.deal(-1, bag);
+        });
+    // prevent places from leaving while the results are collected
+    synchronized (handler) {
+      R result = null;
+      final List<R> results = w.inherited();
+      for (final int id : w.places()) {
+        results.add(at(place(id), () -> w.result()));
+      }
+      for (final R r : results) {
+        result = result == null ? r : r == null ? result : reducer.apply(result, r);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns the handler to install with {@link apgas.Constructs#defineMalleableHandler}.
+   *
+   * @return the malleable handler of this balancer
+   */
+  public MalleableHandler malleableHandler() {
+    return handler;
+  }
+
+  /**
+   * Returns the handler to install with {@link apgas.Constructs#defineEvolvingHandler}.
+   *
+   * @return the evolving handler of this balancer
+   */
+  public EvolvingHandler evolvingHandler() {
+    return handler;
+  }
+
+  /**
+   * Adapts the lifeline graph of a {@link GlobalLoadBalancer} to grow and shrink orders.
+   *
+   * @param <B> the type of the task bags
+   * @param <R> the type of the result
+   */
+  private static final class ElasticHandler<B extends TaskBag, R extends Serializable>
+      implements MalleableHandler, EvolvingHandler {
+
+    private static final long serialVersionUID = 2684795117452036216L;
+
+    private final PlaceWorker<B, R> worker;
+
+    private final SerializableCallable<? extends TaskQueue<B, R>> factory;
+
+    private final int n;
+
+    private final int w;
+
+    private ElasticHandler(
+        PlaceWorker<B, R> worker,
+        SerializableCallable<? extends TaskQueue<B, R>> factory,
+        int n,
+        int w) {
+      this.worker = worker;
+      this.factory = factory;
+      this.n = n;
+      this.w = w;
+    }
+
+    @Override
+    public void preGrow(int nbPlaces) {}
+
+    @Override
+    public void postGrow(
+        int nbPlaces, List<? extends Place> continuedPlaces, List<? extends Place> newPlaces) {
+      final PlaceWorker<B, R> worker = this.worker;
+      final SerializableCallable<? extends TaskQueue<B, R>> factory = this.factory;
+      final int n = this.n;
+      final int w = this.w;
+      synchronized (this) {
+        final List<Integer> list = new ArrayList<>();
+        for (final int id : worker.places()) {
+          list.add(id);
+        }
+        for (final Place p : newPlaces) {
+          if (!list.contains(p.id)) {
+            list.add(p.id);
+          }
+        }
+        final int[] ids = list.stream().mapToInt(Integer::intValue).toArray();
+        finish(
+            () -> {
+              for (final Place p : newPlaces) {
+                asyncAt(
+                    p,
+                    () -> {
+                      final PlaceWorker<B, R> local =
+                          new PlaceWorker<>(factory.call(), n, w, ids);
+                      local.id = PlaceLocalObject.getId(worker);
+                      local.id.putHere(local);
+                    });
+              }
+            });
+        finish(
+            () -> {
+              for (final int id : ids) {
+                asyncAt(place(id), () -> worker.relink(ids));
+              }
+            });
+      }
+    }
+
+    @Override
+    public List<Place> preShrink(int nbPlaces) {
+      final List<Place> leaving = new ArrayList<>();
+      final int[] ids = worker.places();
+      for (int i = ids.length - 1; i >= 0 && leaving.size() < nbPlaces; i--) {
+        if (ids[i] != here().id) {
+          leaving.add(place(ids[i]));
+        }
+      }
+      shrink(leaving);
+      return leaving;
+    }
+
+    @Override
+    public List<Place> preShrink(ArrayList<Place> placeToShrink) {
+      shrink(placeToShrink);
+      return placeToShrink;
+    }
+
+    @Override
+    public void postShrink(int nbPlaces, List<? extends Place> removedPlaces) {}
+
+    /**
+     * Removes places from the computation, waiting for them to hand off their tasks and results.
+     *
+     * @param places the leaving places
+     */
+    private synchronized void shrink(List<Place> places) {
+      final PlaceWorker<B, R> worker = this.worker;
+      final int[] leavers = ids(places);
+      if (Arrays.stream(leavers).anyMatch(id -> id == here().id)) {
+        throw new IllegalArgumentException("the home place of the load balancer cannot leave");
+      }
+      final int[] all = worker.places();
+      final int[] survivors =
+          Arrays.stream(all).filter(id -> Arrays.stream(leavers).noneMatch(l -> l == id)).toArray();
+      // stop the leaving places from stealing, then drop the lifeline requests that no longer
+      // will be served, so that the leaving places only wait for tasks already in flight
+      finish(
+          () -> {
+            for (final int id : leavers) {
+              asyncAt(place(id), () -> worker.leave(survivors));
+            }
+          });
+      finish(
+          () -> {
+            for (final int id : all) {
+              asyncAt(
+                  place(id),
+                  () -> {
+                    for (final int thief : worker.forget(leavers, survivors)) {
+                      asyncAt(place(thief), () -> worker.cancel(id));
+                    }
+                  });
+            }
+          });
+      for (final int id : leavers) {
+        worker.inherit(at(place(id), () -> worker.depart()));
+      }
+    }
+  }
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.glb;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.here;
+import static apgas.Constructs.inlineAsyncAt;
+import static apgas.Constructs.isDead;
+import static apgas.Constructs.place;
+
+import apgas.util.PlaceLocalObject;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A {@link PlaceWorker} runs the part of a {@link GlobalLoadBalancer} computation local to a place.
+ *
+ * <p>An active worker processes its {@link TaskQueue} in batches and serves the steal requests
+ * received in between. Once its queue is empty, it attempts a few random steals, then registers
+ * with its lifelines and becomes inactive. A lifeline that later has work to spare deals it to the
+ * inactive worker with a counted task, which reactivates the worker. The tasks obtained by a random
+ * steal are sent in a counted task as well, which reactivates the thief if it stopped waiting for
+ * them. Since activity only ever spreads through counted tasks, the computation terminates with the
+ * enclosing finish.
+ *
+ * <p>The lifeline graph is a hypercube over the current list of places: the lifelines of the place
+ * with index i are the places with indices i+1, i+2, i+4, ... modulo the number of places.
+ *
+ * @param <B> the type of the task bags
+ * @param <R> the type of the result
+ */
+final class PlaceWorker<B extends TaskBag, R extends Serializable> extends PlaceLocalObject {
+
+  /** The task queue of this place. */
+  private final TaskQueue<B, R> queue;
+
+  /** The number of tasks to process between two rounds of steal requests. */
+  private final int n;
+
+  /** The number of random steal attempts before falling back to the lifelines. */
+  private final int w;
+
+  /** The ID of this place. */
+  private final int home = here().id;
+
+  /** The random number generator used to pick victims (only used by the active worker). */
+  private final Random random = new Random(home);
+
+  /** The places taking part in the computation. */
+  private int[] places;
+
+  /** The lifelines of this place. */
+  private int[] lifelines;
+
+  /** Whether this worker is running. */
+  private boolean active;
+
+  /** Whether this worker is out of tasks and rejects random steal requests. */
+  private boolean empty = true;
+
+  /** Whether this worker waits for the answer to a random steal request. */
+  private boolean waiting;
+
+  /** Whether this place is leaving the computation. */
+  private boolean leaving;
+
+  /** The task bags received but not merged into the queue yet. */
+  private final List<B> loot = new ArrayList<>();
+
+  /** The places waiting for the answer to a random steal request sent to this place. */
+  private final Deque<Integer> thieves = new ArrayDeque<>();
+
+  /** The places with a pending lifeline request to this place. */
+  private final Set<Integer> lifelineThieves = new LinkedHashSet<>();
+
+  /** The places this place has a pending lifeline request with. */
+  private final Set<Integer> requested = new HashSet<>();
+
+  /** The places that left the computation, whose lifeline requests are rejected. */
+  private final Set<Integer> departed = new HashSet<>();
+
+  /** The results of the places that left the computation (at the home place of the balancer). */
+  private final List<R> inherited = new ArrayList<>();
+
+  /** The index of the next place to hand work off to when leaving. */
+  private int next;
+
+  /**
+   * Constructs a worker.
+   *
+   * @param queue the task queue of this place
+   * @param n the number of tasks to process between two rounds of steal requests
+   * @param w the number of random steal attempts
+   * @param places the IDs of the places taking part in the computation
+   */
+  PlaceWorker(TaskQueue<B, R> queue, int n, int w, int[] places) {
+    this.queue = queue;
+    this.n = n;
+    this.w = w;
+    this.places = places;
+    lifelines = lifelines(places, home);
+  }
+
+  /**
+   * Computes the lifelines of a place.
+   *
+   * @param places the IDs of the places taking part in the computation
+   * @param id the ID of the place
+   * @return the IDs of the lifelines of the place
+   */
+  private static int[] lifelines(int[] places, int id) {
+    int index = -1;
+    for (int i = 0; i < places.length; i++) {
+      if (places[i] == id) {
+        index = i;
+      }
+    }
+    if (index < 0) {
+      return new int[0];
+    }
+    final List<Integer> list = new ArrayList<>();
+    for (int d = 1; d < places.length; d *= 2) {
+      list.add(places[(index + d) % places.length]);
+    }
+    return list.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static boolean contains(int[] places, int id) {
+    for (final int p : places) {
+      if (p == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the places taking part in the computation.
+   *
+   * @return the IDs of the places
+   */
+  synchronized int[] places() {
+    return places;
+  }
+
+  /**
+   * Returns the result of the tasks processed at this place.
+   *
+   * @return the result
+   */
+  synchronized R result() {
+    return queue.result();
+  }
+
+  /**
+   * Adds the result of a place that left the computation.
+   *
+   * @param result the result
+   */
+  synchronized void inherit(R result) {
+    inherited.add(result);
+  }
+
+  /**
+   * Returns the results of the places that left the computation.
+   *
+   * @return the results
+   */
+  synchronized List<R> inherited() {
+    return new ArrayList<>(inherited);
+  }
+
+  /**
+   * Gives tasks to this place and activates the worker if inactive.
+   *
+   * <p>Must run in a task of the finish of the computation, as the worker runs in the calling task.
+   *
+   * @param from the ID of the place the tasks come from or -1
+   * @param bag the tasks or null
+   */
+  void deal(int from, B bag) {
+    final boolean leaving;
+    final boolean idle;
+    int successor = -1;
+    synchronized (this) {
+      leaving = this.leaving;
+      idle = !active;
+      if (!leaving) {
+        requested.remove(from);
+        if (bag != null) {
+          loot.add(bag); // merged by the worker if already running
+        }
+        active = true;
+      } else if (bag != null) {
+        successor = successor();
+      }
+    }
+    if (!leaving) {
+      if (idle) {
+        run();
+      }
+      return;
+    }
+    if (successor >= 0) {
+      forward(successor, bag);
+    }
+    cancel(from); // acknowledge the deal once the tasks are handed off
+  }
+
+  /** Activates the worker if inactive, which then attempts to steal tasks. */
+  void start() {
+    deal(-1, null);
+  }
+
+  /** Runs the worker until no tasks can be found. */
+  private void run() {
+    for (; ; ) {
+      final List<B> bags;
+      synchronized (this) {
+        bags = new ArrayList<>(loot);
+        loot.clear();
+        empty = false;
+      }
+      for (final B bag : bags) {
+        queue.merge(bag);
+      }
+      while (queue.process(n)) {
+        distribute();
+      }
+      distribute();
+      reject();
+      if (steal()) {
+        continue;
+      }
+      synchronized (this) {
+        if (loot.isEmpty()) {
+          active = false;
+          notifyAll();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes tasks from the queue to give them to another place.
+   *
+   * @return the tasks or null if none
+   */
+  private B split() {
+    final B bag = queue.split();
+    return bag == null || bag.size() == 0 ? null : bag;
+  }
+
+  /** Serves the pending steal requests, or hands off tasks if this place is leaving. */
+  private void distribute() {
+    final List<Integer> list;
+    final boolean leaving;
+    synchronized (this) {
+      list = new ArrayList<>(thieves);
+      thieves.clear();
+      leaving = this.leaving;
+    }
+    for (final int thief : list) {
+      // a leaving place hands its tasks off to its successors below
+      reply(thief, leaving ? null : split());
+    }
+    if (leaving) {
+      B bag;
+      while ((bag = split()) != null) {
+        final int successor;
+        synchronized (this) {
+          successor = successor();
+        }
+        forward(successor, bag);
+      }
+      return;
+    }
+    final PlaceWorker<B, R> that = this;
+    final int me = home;
+    for (; ; ) {
+      synchronized (this) {
+        if (lifelineThieves.isEmpty()) {
+          return;
+        }
+      }
+      final B bag = split();
+      if (bag == null) {
+        return;
+      }
+      final int thief;
+      synchronized (this) {
+        if (lifelineThieves.isEmpty()) {
+          queue.merge(bag); // lifeline thieves left in the meantime
+          return;
+        }
+        final Integer first = lifelineThieves.iterator().next();
+        lifelineThieves.remove(first);
+        thief = first;
+      }
+      asyncAt(place(thief), () -> that.deal(me, bag));
+    }
+  }
+
+  /** Marks this worker as empty and rejects the pending random steal requests. */
+  private void reject() {
+    final List<Integer> list;
+    synchronized (this) {
+      empty = true;
+      list = new ArrayList<>(thieves);
+      thieves.clear();
+    }
+    for (final int thief : list) {
+      reply(thief, null);
+    }
+  }
+
+  /**
+   * Attempts to steal tasks from random places, then registers with the lifelines.
+   *
+   * @return true if tasks were obtained
+   */
+  private boolean steal() {
+    final PlaceWorker<B, R> that = this;
+    final int me = home;
+    for (int i = 0; i < w; i++) {
+      final int victim;
+      synchronized (this) {
+        if (leaving || !loot.isEmpty() || places.length < 2) {
+          break;
+        }
+        int v;
+        do {
+          v = places[random.nextInt(places.length)];
+        } while (v == home);
+        victim = v;
+        waiting = true;
+      }
+      inlineAsyncAt(place(victim), () -> that.request(me, false));
+      synchronized (this) {
+        // stop waiting if the victim leaves the computation or dies without answering
+        while (waiting && contains(places, victim) && !isDead(place(victim))) {
+          try {
+            wait(100);
+          } catch (final InterruptedException e) {
+          }
+        }
+        waiting = false;
+      }
+    }
+    final List<Integer> list = new ArrayList<>();
+    synchronized (this) {
+      if (!loot.isEmpty()) {
+        return true;
+      }
+      if (leaving) {
+        return false;
+      }
+      for (final int lifeline : lifelines) {
+        if (requested.add(lifeline)) {
+          list.add(lifeline);
+        }
+      }
+    }
+    for (final int lifeline : list) {
+      inlineAsyncAt(place(lifeline), () -> that.request(me, true));
+    }
+    synchronized (this) {
+      return !loot.isEmpty();
+    }
+  }
+
+  /**
+   * Handles a steal request.
+   *
+   * @param thief the ID of the place requesting tasks
+   * @param lifeline whether this is a lifeline request
+   */
+  void request(int thief, boolean lifeline) {
+    synchronized (this) {
+      if (lifeline) {
+        if (!leaving && !departed.contains(thief)) {
+          lifelineThieves.add(thief);
+          return;
+        }
+      } else if (active && !empty) {
+        thieves.add(thief);
+        return;
+      }
+    }
+    if (lifeline) {
+      // this place or the thief is leaving, the thief must not wait for this place to deal tasks
+      final PlaceWorker<B, R> that = this;
+      final int me = home;
+      inlineAsyncAt(place(thief), () -> that.cancel(me));
+    } else {
+      reply(thief, null);
+    }
+  }
+
+  /**
+   * Answers a random steal request.
+   *
+   * <p>A rejection is an inline immediate task. Tasks are sent in a counted task, since the thief
+   * may stop waiting for the answer if this place leaves the computation in the meantime.
+   *
+   * @param thief the ID of the place that requested tasks
+   * @param bag the tasks or null if none
+   */
+  private void reply(int thief, B bag) {
+    final PlaceWorker<B, R> that = this;
+    if (bag == null) {
+      inlineAsyncAt(place(thief), () -> that.receive(null));
+    } else {
+      asyncAt(place(thief), () -> that.receive(bag));
+    }
+  }
+
+  /**
+   * Receives the answer to a random steal request.
+   *
+   * <p>Tasks are dealt to this place, which reactivates the worker if it is no longer waiting.
+   *
+   * @param bag the tasks or null if none
+   */
+  private void receive(B bag) {
+    if (bag != null) {
+      deal(-1, bag);
+    }
+    synchronized (this) {
+      waiting = false;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Returns the next place to hand tasks off to (must hold the lock).
+   *
+   * @return the ID of the place
+   */
+  private int successor() {
+    return places[next++ % places.length];
+  }
+
+  /**
+   * Hands tasks off to another place with a counted task.
+   *
+   * @param successor the ID of the place
+   * @param bag the tasks
+   */
+  private void forward(int successor, B bag) {
+    final PlaceWorker<B, R> that = this;
+    final int me = home;
+    asyncAt(place(successor), () -> that.deal(me, bag));
+  }
+
+  /**
+   * Updates the places taking part in the computation and registers with the new lifelines if
+   * inactive.
+   *
+   * @param places the IDs of the places
+   */
+  void relink(int[] places) {
+    final List<Integer> list = new ArrayList<>();
+    synchronized (this) {
+      if (leaving) {
+        return;
+      }
+      for (final int id : places) {
+        departed.remove(id); // the place joined again
+      }
+      this.places = places;
+      lifelines = lifelines(places, home);
+      if (!active) {
+        for (final int lifeline : lifelines) {
+          if (requested.add(lifeline)) {
+            list.add(lifeline);
+          }
+        }
+      }
+    }
+    final PlaceWorker<B, R> that = this;
+    final int me = home;
+    for (final int lifeline : list) {
+      inlineAsyncAt(place(lifeline), () -> that.request(me, true));
+    }
+  }
+
+  /**
+   * Marks this place as leaving the computation. A leaving place stops stealing and hands off its
+   * tasks to the remaining places.
+   *
+   * @param survivors the IDs of the places remaining in the computation
+   */
+  synchronized void leave(int[] survivors) {
+    leaving = true;
+    places = survivors;
+    lifelines = new int[0];
+  }
+
+  /**
+   * Drops the lifeline requests that will not be served because of places leaving the
+   * computation: the requests of the leaving places, and all requests if this place is leaving.
+   * Lifeline requests received later from the leaving places, or by a leaving place, are rejected
+   * on arrival.
+   *
+   * @param leavers the IDs of the leaving places
+   * @param survivors the IDs of the places remaining in the computation
+   * @return the IDs of the places whose request was dropped
+   */
+  int[] forget(int[] leavers, int[] survivors) {
+    final int[] dropped;
+    synchronized (this) {
+      if (leaving) {
+        dropped = lifelineThieves.stream().mapToInt(Integer::intValue).toArray();
+        lifelineThieves.clear();
+        return dropped;
+      }
+      dropped =
+          lifelineThieves.stream()
+              .mapToInt(Integer::intValue)
+              .filter(id -> contains(leavers, id))
+              .toArray();
+      for (final int id : dropped) {
+        lifelineThieves.remove(id);
+      }
+      // reject the lifeline requests of the leaving places still in flight
+      for (final int id : leavers) {
+        departed.add(id);
+      }
+    }
+    relink(survivors);
+    return dropped;
+  }
+
+  /**
+   * Acknowledges that a lifeline request to a place was dropped.
+   *
+   * @param id the ID of the place
+   */
+  synchronized void cancel(int id) {
+    requested.remove(id);
+    notifyAll();
+  }
+
+  /**
+   * Waits for a leaving place to hand off its tasks and returns its result.
+   *
+   * @return the result of the tasks processed at this place
+   */
+  synchronized R depart() {
+    while (active || !requested.isEmpty()) {
+      try {
+        wait(100);
+      } catch (final InterruptedException e) {
+      }
+    }
+    return queue.result();
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.glb;
+
+import java.io.Serializable;
+
+/**
+ * A {@link TaskBag} is a batch of tasks transferred from one {@link TaskQueue} to another by the
+ * {@link GlobalLoadBalancer}.
+ */
+public interface TaskBag extends Serializable {
+
+  /**
+   * Returns the number of tasks in this bag.
+   *
+   * @return the number of tasks in this bag
+   */
+  int size();
+}
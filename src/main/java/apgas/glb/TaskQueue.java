@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.glb;
+
+import java.io.Serializable;
+
+/**
+ * A {@link TaskQueue} holds the pending tasks of a {@link GlobalLoadBalancer} computation at one
+ * place together with the result of the tasks already processed at this place.
+ *
+ * <p>The load balancer never invokes the methods of a task queue concurrently.
+ *
+ * @param <B> the type of the task bags exchanged between task queues
+ * @param <R> the type of the result of the computation
+ */
+public interface TaskQueue<B extends TaskBag, R extends Serializable> {
+
+  /**
+   * Processes at most {@code n} tasks of this queue, accumulating their results in this queue.
+   * Processing a task may add new tasks to this queue.
+   *
+   * @param n the maximum number of tasks to process
+   * @return true if tasks remain in this queue
+   */
+  boolean process(int n);
+
+  /**
+   * Removes some of the tasks of this queue, typically half of them, to give them to another place.
+   *
+   * @return the removed tasks or null if this queue has too few tasks to share
+   */
+  B split();
+
+  /**
+   * Adds the tasks of a bag obtained from another queue to this queue.
+   *
+   * @param bag the tasks to add
+   */
+  void merge(B bag);
+
+  /**
+   * Returns the result of all the tasks processed by this queue so far.
+   *
+   * @return the result of this queue
+   */
+  R result();
+}
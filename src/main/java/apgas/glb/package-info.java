@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+/**
+ * The {@link apgas.glb} package implements lifeline-based global load balancing for irregular
+ * computations on top of the APGAS constructs.
+ */
+package apgas.glb;
@@ -13,10 +13,14 @@ package apgas.impl;
 
 import apgas.SerializableJob;
 import apgas.util.GlobalID;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The {@link DefaultFinish} class implements the distributed termination semantics of the finish
@@ -24,12 +28,12 @@ import java.util.List;
  *
  * <p>A single dynamic instance of a finish construct is implemented by a collection of {@link
  * DefaultFinish} objects: one per place in which tasks governed by this finish have been spawned.
- * These objects are identified by their {@link apgas.util.GlobalID GlobalID} instance.
+ * These objects are identified by a globally unique {@code long} ID.
  *
- * <p>The collection is created lazily. First, the {@link apgas.util.GlobalID GlobalID} is allocated
- * only when the {@link DefaultFinish} object is serialized for the first time. Second, {@link
- * DefaultFinish} objects are added to the collection upon deserialization. The {@code
- * #readResolve()} method ensures that a single object is allocated in each place.
+ * <p>The collection is created lazily. First, the ID is allocated only when the {@link
+ * DefaultFinish} object is serialized for the first time. Second, {@link DefaultFinish} objects are
+ * added to the collection upon deserialization. The {@code #readResolve()} method ensures that a
+ * single object is allocated in each place.
  *
  * <p>A finish object may represent:
  *
@@ -45,12 +49,15 @@ final class DefaultFinish implements Serializable, Finish {
 
   private static final long serialVersionUID = 3789869778188598267L;
 
+  /** The value of {@link #gid} before the finish object is first serialized. */
+  private static final long NO_GID = Long.MIN_VALUE;
+
   /**
-   * The {@link GlobalID} instance for this finish construct.
+   * The globally unique ID of this finish construct (see {@link GlobalID#newGid()}).
    *
-   * <p>Null until the finish object is first serialized.
+   * <p>{@link #NO_GID} until the finish object is first serialized.
    */
-  GlobalID id;
+  long gid = NO_GID;
 
   /**
    * A multi-purpose task counter.
@@ -75,6 +82,9 @@ final class DefaultFinish implements Serializable, Finish {
   /** Uncaught exceptions collected by this finish construct. */
   private transient List<Throwable> exceptions;
 
+  /** The thread parked in {@link #park()} if any. */
+  private transient volatile Thread waiter;
+
   /** Constructs a finish instance. */
   DefaultFinish() {
     final int here = GlobalRuntimeImpl.getRuntime().here;
@@ -84,7 +94,7 @@ final class DefaultFinish implements Serializable, Finish {
   @Override
   public synchronized void addSuppressed(Throwable exception) {
     final int here = GlobalRuntimeImpl.getRuntime().here;
-    if (id == null || id.home.id == here) {
+    if (gid == NO_GID || home() == here) {
       // root finish
       if (exceptions == null) {
         exceptions = new ArrayList<>();
@@ -94,7 +104,7 @@ final class DefaultFinish implements Serializable, Finish {
       // remote finish: spawn remote task to transfer exception to root finish
       final SerializableThrowable t = new SerializableThrowable(exception);
       final DefaultFinish that = this;
-      spawn(id.home.id);
+      spawn(home());
       new Task(
               this,
               (SerializableJob)
@@ -102,7 +112,7 @@ final class DefaultFinish implements Serializable, Finish {
                     that.addSuppressed(t.t);
                   },
               here)
-          .asyncAt(id.home.id);
+          .asyncAt(home());
     }
   }
 
@@ -117,8 +127,30 @@ final class DefaultFinish implements Serializable, Finish {
     return count == 0;
   }
 
+  @Override
+  public void park() {
+    waiter = Thread.currentThread();
+    while (!isReleasable()) {
+      LockSupport.park(this);
+    }
+    waiter = null;
+  }
+
+  /** Wakes up the threads waiting for this finish. */
+  private void release() {
+    notifyAll();
+    final Thread t = waiter;
+    if (t != null) {
+      LockSupport.unpark(t);
+    }
+  }
+
   @Override
   public synchronized List<Throwable> exceptions() {
+    if (gid != NO_GID) {
+      // root finish is complete, no further message can refer to it
+      GlobalID.removeHere(gid, this);
+    }
     return exceptions;
   }
 
@@ -127,6 +159,15 @@ final class DefaultFinish implements Serializable, Finish {
     return count == 0;
   }
 
+  /**
+   * Returns the ID of the place where this finish construct was instantiated.
+   *
+   * @return the ID of the home place, only valid once the finish object was serialized
+   */
+  private int home() {
+    return GlobalID.home(gid);
+  }
+
   /**
    * Deserializes the finish object.
    *
@@ -134,13 +175,17 @@ final class DefaultFinish implements Serializable, Finish {
    */
   public Object readResolve() {
     // count = 0;
-    DefaultFinish me = (DefaultFinish) id.putHereIfAbsent(this);
+    // lock-free lookup first, most messages refer to a known finish
+    DefaultFinish me = (DefaultFinish) GlobalID.getHere(gid);
     if (me == null) {
-      me = this;
+      me = (DefaultFinish) GlobalID.putHereIfAbsent(gid, this);
+      if (me == null) {
+        me = this;
+      }
     }
     synchronized (me) {
       final int here = GlobalRuntimeImpl.getRuntime().here;
-      if (id.home.id != here && me.counts == null) {
+      if (home() != here && me.counts == null) {
         me.counts = new int[GlobalRuntimeImpl.getRuntime().maxPlace()];
       }
       return me;
@@ -161,7 +206,7 @@ final class DefaultFinish implements Serializable, Finish {
   @Override
   public synchronized void spawn(int p) {
     final int here = GlobalRuntimeImpl.getRuntime().here;
-    if (id == null || id.home.id == here) {
+    if (gid == NO_GID || home() == here) {
       // local or root finish
       if (counts == null) {
         if (here == p) {
@@ -193,7 +238,7 @@ final class DefaultFinish implements Serializable, Finish {
   @Override
   public synchronized void submit(int p) {
     final int here = GlobalRuntimeImpl.getRuntime().here;
-    if (id != null && id.home.id != here) {
+    if (gid != NO_GID && home() != here) {
       // remote finish
       count++;
     }
@@ -202,7 +247,7 @@ final class DefaultFinish implements Serializable, Finish {
   @Override
   public synchronized void tell() {
     final int here = GlobalRuntimeImpl.getRuntime().here;
-    if (id == null || id.home.id == here) {
+    if (gid == NO_GID || home() == here) {
       // local or root finish
       if (counts != null) {
         if (counts[here] == 0) {
@@ -213,16 +258,16 @@ final class DefaultFinish implements Serializable, Finish {
         }
       }
       if (--count == 0) {
-        notifyAll();
+        release();
       }
     } else {
       // remote finish
       --counts[here];
       if (--count == 0) {
-        final int[] _counts = counts;
-        final DefaultFinish that = this;
-        GlobalRuntimeImpl.getRuntime().transport.send(id.home.id, () -> that.update(_counts));
+        GlobalRuntimeImpl.getRuntime().transport.send(home(), new Update(this, counts));
         Arrays.fill(counts, 0);
+        // free the slot, a task arriving later allocates a fresh remote finish
+        GlobalID.removeHere(gid, this);
       }
     }
   }
@@ -230,7 +275,7 @@ final class DefaultFinish implements Serializable, Finish {
   @Override
   public synchronized void unspawn(int p) {
     final int here = GlobalRuntimeImpl.getRuntime().here;
-    if (id == null || id.home.id == here) {
+    if (gid == NO_GID || home() == here) {
       // root finish
       if (counts == null) {
         // task must have been local
@@ -268,7 +313,7 @@ final class DefaultFinish implements Serializable, Finish {
       }
     }
     if (count == 0) {
-      notifyAll();
+      release();
     }
   }
 
@@ -278,9 +323,9 @@ final class DefaultFinish implements Serializable, Finish {
    * @return this
    */
   public synchronized Object writeReplace() {
-    if (id == null) {
-      id = new GlobalID();
-      id.putHere(this);
+    if (gid == NO_GID) {
+      gid = GlobalID.newGid();
+      GlobalID.putHere(gid, this);
     }
     return this;
   }
@@ -293,4 +338,40 @@ final class DefaultFinish implements Serializable, Finish {
       return new DefaultFinish();
     }
   }
+
+  /**
+   * The message reporting the termination of the tasks of a remote finish to the root finish.
+   *
+   * <p>The message also carries the load of the remote place (see {@link PlaceLoads}).
+   */
+  private static final class Update implements SerializableRunnable {
+
+    private static final long serialVersionUID = 3390931208617245717L;
+
+    /** The finish to update. */
+    private final DefaultFinish finish;
+
+    /** The task counts to apply. */
+    private final int[] counts;
+
+    private Update(DefaultFinish finish, int[] counts) {
+      this.finish = finish;
+      this.counts = counts;
+    }
+
+    @Override
+    public void run() {
+      finish.update(counts);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      GlobalRuntimeImpl.getRuntime().loads.read(in);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      out.defaultWriteObject();
+      GlobalRuntimeImpl.getRuntime().loads.write(out);
+    }
+  }
 }
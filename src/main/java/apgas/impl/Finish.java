@@ -13,6 +13,8 @@ package apgas.impl;
 import java.io.Serializable;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /** The {@link Finish} interface. */
 interface Finish extends ForkJoinPool.ManagedBlocker, Serializable {
@@ -37,6 +39,18 @@ interface Finish extends ForkJoinPool.ManagedBlocker, Serializable {
   @Override
   boolean isReleasable();
 
+  /**
+   * Parks the calling thread until this finish is releasable.
+   *
+   * <p>Used instead of {@link ForkJoinPool#managedBlock} by virtual threads, so that waiting does
+   * not pin the carrier thread. This default implementation polls {@link #isReleasable()}.
+   */
+  default void park() {
+    while (!isReleasable()) {
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+  }
+
   /**
    * Must be called before a task is spawned at place p (local task or outgoing remote task).
    *
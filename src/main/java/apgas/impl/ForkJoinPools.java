@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@link ForkJoinPools} class changes the parallelism of a running pool.
+ *
+ * <p>This version is used on Java releases where the parallelism of a pool is fixed. The
+ * multi-release jar contains a Java 21 version of this class (see {@code src/main/java21}).
+ */
+final class ForkJoinPools {
+
+  /** Prevents instantiation. */
+  private ForkJoinPools() {}
+
+  /**
+   * Returns true if the parallelism of a running pool can be changed.
+   *
+   * @return false
+   */
+  static boolean canResize() {
+    return false;
+  }
+
+  /**
+   * Changes the target parallelism of a pool.
+   *
+   * <p>Does nothing, since {@link #canResize()} returns false on this release: a pool keeps the
+   * parallelism it was constructed with.
+   *
+   * @param pool the pool
+   * @param parallelism the new parallelism
+   */
+  static void setParallelism(ForkJoinPool pool, int parallelism) {}
+}
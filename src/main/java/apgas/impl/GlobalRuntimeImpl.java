@@ -13,11 +13,14 @@ package apgas.impl;
 
 import apgas.Configuration;
 import apgas.Constructs;
+import apgas.DeadPlaceException;
 import apgas.GlobalRuntime;
 import apgas.MultipleException;
 import apgas.Place;
+import apgas.Priority;
 import apgas.SerializableCallable;
 import apgas.SerializableJob;
+import apgas.SerializableLongConsumer;
 import apgas.impl.Finish.Factory;
 import apgas.impl.elastic.*;
 import apgas.launcher.Launcher;
@@ -42,6 +45,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -49,7 +53,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -80,8 +83,29 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
   /** This place's ID. */
   final int here;
 
+  /** The loads of the places as reported by incoming task messages. */
+  final PlaceLoads loads;
+
+  /** Whether the pool is sized from the cores and places of the host. */
+  private final boolean adaptiveThreads;
+
+  /** The queue of tasks received from other places. */
+  private final Inbox inbox;
+
+  /** The high priority tasks not yet run. */
+  private final Queue<Task> urgent = new ConcurrentLinkedQueue<>();
+
+  /** The executor running tasks on virtual threads, or null if not in virtual-thread mode. */
+  final ExecutorService virtualExecutor;
+
+  /**
+   * The number of nested finish blocks a worker may help in by running any task, or 0 if workers
+   * only help with the tasks of the finish they wait for.
+   */
+  final int helpDepth;
+
   /** A extra pool for immediate calls. */
-  final ThreadPoolExecutor immediatePool;
+  final ImmediateDispatcher immediatePool;
 
   /** The initial number of places */
   final int initialPlaces;
@@ -150,7 +174,7 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
   int timeoutStarting = 60;
 
   /** True if shutdown is in progress. */
-  private boolean dying;
+  private volatile boolean dying;
 
   /** The registered place failure handler. */
   private Consumer<Place> handler;
@@ -193,6 +217,7 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     }
 
     final int maxThreads = Configuration.CONFIG_APGAS_MAX_THREADS.get();
+    adaptiveThreads = Configuration.CONFIG_APGAS_THREADS_ADAPTIVE.get();
     final int backupCount = Configuration.CONFIG_APGAS_BACKUPCOUNT.get();
     final int placeID = Configuration.CONFIG_APGAS_PLACE_ID.get();
 
@@ -211,14 +236,23 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
 
     finishFactory = resilient ? new ResilientFinishOpt.Factory() : new DefaultFinish.Factory();
 
-    // initialize scheduler
-    pool =
-        new MyForkJoinPool(
-            Configuration.CONFIG_APGAS_THREADS.get(), maxThreads, new WorkerFactory(), null);
+    // tasks received before the scheduler is initialized are held in the inbox
+    inbox = new Inbox();
 
-    immediatePool =
-        (ThreadPoolExecutor)
-            Executors.newFixedThreadPool(Configuration.CONFIG_APGAS_IMMEDIATE_THREADS.get());
+    immediatePool = new ImmediateDispatcher(Configuration.CONFIG_APGAS_IMMEDIATE_THREADS.get());
+
+    if (Configuration.CONFIG_APGAS_VIRTUAL_THREADS.get() && !VirtualThreads.isSupported()) {
+      System.err.println(
+          "[APGAS] virtual threads are not supported by this JVM, using the worker pool instead");
+    }
+    virtualExecutor =
+        Configuration.CONFIG_APGAS_VIRTUAL_THREADS.get() && VirtualThreads.isSupported()
+            ? VirtualThreads.newExecutor()
+            : null;
+    helpDepth =
+        Configuration.APGAS_FINISH_HELP_ANY.equals(Configuration.CONFIG_APGAS_FINISH_HELP.get())
+            ? Configuration.CONFIG_APGAS_FINISH_HELP_DEPTH.get()
+            : 0;
 
     // Initialize transport
     transport = new Transport(this, master, ip, backupCount, placeID);
@@ -230,6 +264,16 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     }
     waitForAllHazelcastMembers();
 
+    // initialize scheduler once the places sharing the host are known
+    pool =
+        new MyForkJoinPool(
+            adaptiveThreads ? adaptiveParallelism() : Configuration.CONFIG_APGAS_THREADS.get(),
+            maxThreads,
+            new WorkerFactory(),
+            null);
+    loads = new PlaceLoads(this);
+    inbox.start(pool);
+
     here = transport.here();
     home = new Place(here);
     resilientFinishMap = resilient ? transport.getResilientFinishMap() : null;
@@ -286,6 +330,10 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     ready = true;
     reduceReadyCounter();
 
+    if (resilient && here == 0) {
+      startFinishEviction();
+    }
+
     if (here == 0 && verboseLauncher) {
       System.out.println(
           "[APGAS] Place startup time: " + (System.nanoTime() - begin) / 1E9 + " sec");
@@ -293,6 +341,44 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     startupTime = System.nanoTime();
   }
 
+  /**
+   * Starts a daemon thread periodically evicting the completed resilient finish states retained for
+   * longer than {@link Configuration#CONFIG_APGAS_RESILIENT_FINISH_RETENTION}.
+   *
+   * <p>Only place 0 runs this thread since place 0 cannot be removed from the runtime.
+   */
+  private void startFinishEviction() {
+    final long retention = Configuration.CONFIG_APGAS_RESILIENT_FINISH_RETENTION.get() * 1000L;
+    if (retention <= 0) {
+      return;
+    }
+    final Thread thread =
+        new Thread(
+            () -> {
+              while (!dying) {
+                try {
+                  TimeUnit.MILLISECONDS.sleep(Math.max(retention / 4, 1000L));
+                } catch (final InterruptedException e) {
+                  return;
+                }
+                try {
+                  final int evicted = ResilientFinishState.evict(retention);
+                  if (evicted > 0 && verboseLauncher) {
+                    System.err.println(
+                        "[APGAS] evicted " + evicted + " completed resilient finish states");
+                  }
+                } catch (final Throwable t) {
+                  if (!dying) {
+                    t.printStackTrace();
+                  }
+                }
+              }
+            },
+            "apgas-finish-eviction");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
   private static Worker currentWorker() {
     final Thread t = Thread.currentThread();
     return t instanceof Worker ? (Worker) t : null;
@@ -342,14 +428,109 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
    * @param f the function to run
    */
   public void asyncAt(Place p, SerializableJob f) {
-    final Worker worker = currentWorker();
-    final Finish finish =
-        worker == null || worker.task == null ? NullFinish.SINGLETON : worker.task.finish;
+    final Task task = Task.current();
+    final Finish finish = task == null ? NullFinish.SINGLETON : task.finish;
     finish.spawn(p.id);
 
     new Task(finish, f, here).asyncAt(p.id);
   }
 
+  /**
+   * Submits a new task to the global runtime with body {@code f} and the given scheduling priority
+   * to be run at {@link Place} {@code p} and returns immediately.
+   *
+   * @param p the place of execution
+   * @param priority the priority of the task
+   * @param f the function to run
+   */
+  public void asyncAt(Place p, Priority priority, SerializableJob f) {
+    final Task task = Task.current();
+    final Finish finish = task == null ? NullFinish.SINGLETON : task.finish;
+    finish.spawn(p.id);
+
+    new Task(finish, f, here, priority).asyncAt(p.id);
+  }
+
+  /**
+   * Submits a new task to the global runtime with body {@code f} to be run at each place of a
+   * collection and returns immediately. The tasks are spawned along a spanning tree of the places
+   * and are all tracked by the finish of the calling task.
+   *
+   * @param places the places of execution, with no repetition
+   * @param f the function to run
+   */
+  public void asyncAtAll(Collection<? extends Place> places, SerializableJob f) {
+    SpanningTree.asyncAt(places.stream().mapToInt(p -> p.id).toArray(), f);
+  }
+
+  /**
+   * Submits an immediate task to the global runtime with body {@code f} to be run at each place of
+   * a collection. The tasks are sent along a spanning tree of the places, each place running {@code
+   * f} before forwarding.
+   *
+   * @param places the places of execution, with no repetition
+   * @param f the function to run
+   */
+  public void immediateAsyncAtAll(Collection<? extends Place> places, SerializableRunnable f) {
+    SpanningTree.immediateAsyncAt(places.stream().mapToInt(p -> p.id).toArray(), f);
+  }
+
+  /**
+   * Submits a new task to the global runtime with body {@code f} to be run at a place chosen by the
+   * runtime and returns immediately.
+   *
+   * @param f the function to run
+   */
+  public void asyncAny(SerializableJob f) {
+    final int p = loads.assign(1)[0];
+    if (p != here) {
+      try {
+        asyncAt(new Place(p), f);
+        return;
+      } catch (final DeadPlaceException e) {
+        loads.remove(p);
+      }
+    }
+    asyncAt(new Place(here), f);
+  }
+
+  /**
+   * Submits new tasks to the global runtime to be run at places chosen by the runtime and returns
+   * immediately. The tasks assigned to the same remote place are sent together.
+   *
+   * @param jobs the functions to run
+   */
+  public void asyncAny(Collection<? extends SerializableJob> jobs) {
+    final int[] assignment = loads.assign(jobs.size());
+    final Map<Integer, ArrayList<SerializableJob>> batches = new HashMap<>();
+    int i = 0;
+    for (final SerializableJob job : jobs) {
+      final int p = assignment[i++];
+      if (p == here) {
+        asyncAt(new Place(here), job);
+      } else {
+        batches.computeIfAbsent(p, k -> new ArrayList<>()).add(job);
+      }
+    }
+    for (final Map.Entry<Integer, ArrayList<SerializableJob>> entry : batches.entrySet()) {
+      final ArrayList<SerializableJob> batch = entry.getValue();
+      try {
+        asyncAt(
+            new Place(entry.getKey()),
+            () -> {
+              for (final SerializableJob job : batch) {
+                Constructs.async(job);
+              }
+            });
+      } catch (final DeadPlaceException e) {
+        loads.remove(entry.getKey());
+        for (final SerializableJob job : batch) {
+          asyncAt(new Place(here), job);
+        }
+      }
+    }
+  }
+
   /**
    * Submits a new local task to the global runtime with body {@code f} and returns immediately.
    *
@@ -357,14 +538,64 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
    */
   public void asyncFork(SerializableJob f) {
     final Worker worker = currentWorker();
-    final Finish finish =
-        worker == null || worker.task == null ? NullFinish.SINGLETON : worker.task.finish;
+    final Task current = Task.current();
+    final Finish finish = current == null ? NullFinish.SINGLETON : current.finish;
 
     finish.spawn(here);
     final Task task = new Task(finish, f, here);
     task.async(worker);
   }
 
+  /**
+   * Runs {@code body} for each index in {@code [from, to)} in parallel at the current place and
+   * waits for all the iterations to complete.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @param body the function to run for each index
+   * @throws MultipleException if there are uncaught exceptions
+   */
+  public void forEach(long from, long to, SerializableLongConsumer body) {
+    finish(() -> ParallelLoop.async(from, to, body));
+  }
+
+  /**
+   * Runs {@code body} for each index in {@code [from, to)} in parallel across a collection of
+   * places and waits for all the iterations to complete.
+   *
+   * <p>The range is block distributed: each place gets a contiguous slice of the range in the
+   * iteration order of the collection, which it runs in parallel.
+   *
+   * @param places the places of execution, with no repetition
+   * @param from the first index
+   * @param to the index after the last index
+   * @param body the function to run for each index
+   * @throws MultipleException if there are uncaught exceptions
+   */
+  public void forEach(
+      Collection<? extends Place> places, long from, long to, SerializableLongConsumer body) {
+    if (from >= to) {
+      return;
+    }
+    final int[] ids = places.stream().mapToInt(p -> p.id).toArray();
+    finish(
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  final int here = GlobalRuntimeImpl.getRuntime().here;
+                  int k = 0;
+                  while (ids[k] != here) {
+                    k++;
+                  }
+                  // unsigned, as to - from overflows for ranges wider than Long.MAX_VALUE
+                  final long q = Long.divideUnsigned(to - from, ids.length);
+                  final long r = Long.remainderUnsigned(to - from, ids.length);
+                  final long lo = from + q * k + Math.min(k, r);
+                  ParallelLoop.async(lo, lo + q + (k < r ? 1 : 0), body);
+                }));
+  }
+
   /**
    * Evaluates {@code f} at {@link Place} {@code p}, waits for all the tasks transitively spawned by
    * {@code f}, and returns the result.
@@ -376,7 +607,7 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
    */
   @SuppressWarnings("unchecked")
   public <T extends Serializable> T at(Place p, SerializableCallable<T> f) {
-    final GlobalID id = new GlobalID();
+    final long gid = GlobalID.newGid();
     final Place _home = here();
     Constructs.finish(
         () ->
@@ -384,9 +615,9 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
                 p,
                 () -> {
                   final T _result = f.call();
-                  Constructs.asyncAt(_home, () -> id.putHere(_result));
+                  Constructs.asyncAt(_home, () -> GlobalID.putHere(gid, _result));
                 }));
-    return (T) id.removeHere();
+    return (T) GlobalID.removeHere(gid);
   }
 
   /**
@@ -432,7 +663,54 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
    * @param task the task
    */
   void execute(ForkJoinTask<?> task) {
-    pool.execute(task);
+    if (virtualExecutor != null) {
+      virtualExecutor.execute(task::invoke);
+    } else {
+      pool.execute(task);
+    }
+  }
+
+  /**
+   * Submits a task received from another place to the pool.
+   *
+   * <p>Received tasks are batched into the deque of a single worker rather than submitted one at a
+   * time to the shared submission queue of the pool.
+   *
+   * @param task the task
+   */
+  void receive(ForkJoinTask<?> task) {
+    if (virtualExecutor != null) {
+      execute(task);
+    } else {
+      inbox.add(task);
+    }
+  }
+
+  /**
+   * Submits a high priority task to the pool.
+   *
+   * <p>The task is queued separately from the normal tasks. The pending high priority tasks run
+   * before each normal task a worker starts from its scheduling loop, but not before the tasks run
+   * inline by finish blocks, so that they do not nest on the stack of an arbitrary task. A wake-up
+   * task is also submitted to the pool in case all the workers are idle.
+   *
+   * @param task the task
+   */
+  void receiveUrgent(Task task) {
+    if (virtualExecutor != null) {
+      execute(task);
+    } else {
+      urgent.add(task);
+      pool.execute(this::runUrgent);
+    }
+  }
+
+  /** Runs the pending high priority tasks on the current worker thread. */
+  void runUrgent() {
+    Task task;
+    while ((task = urgent.poll()) != null) {
+      task.compute();
+    }
   }
 
   /**
@@ -474,9 +752,9 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
    */
   public void finish(SerializableJob f) {
     final Worker worker = currentWorker();
+    final Task current = Task.current();
     final Finish finish =
-        finishFactory.make(
-            worker == null || worker.task == null ? NullFinish.SINGLETON : worker.task.finish);
+        finishFactory.make(current == null ? NullFinish.SINGLETON : current.finish);
     new Task(finish, f, here).finish(worker);
     final List<Throwable> exceptions = finish.exceptions();
     if (exceptions != null) {
@@ -487,10 +765,11 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
   /**
    * Returns the Worker running the current task
    *
-   * @return Worker object of the current task
+   * @return Worker object of the current task, or null if the current thread is not a worker thread
+   *     (e.g. a virtual thread)
    */
   public Worker getCurrentWorker() {
-    return (Worker) Thread.currentThread();
+    return currentWorker();
   }
 
   @Override
@@ -498,6 +777,19 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     return pool;
   }
 
+  /**
+   * Returns the finish of the task running on the current thread.
+   *
+   * <p>The result is only meant to be compared by identity, for instance to group the messages
+   * sent by the tasks of the same finish.
+   *
+   * @return the current finish
+   */
+  public Object currentFinish() {
+    final Task task = Task.current();
+    return task == null ? NullFinish.SINGLETON : task.finish;
+  }
+
   /**
    * Returns the current {@link Place}.
    *
@@ -529,6 +821,17 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     new ImmediateTask(f).immediateAsyncAt(p.id);
   }
 
+  /**
+   * Submits an immediate task to the global runtime to be run at {@link Place} {@code p} with body
+   * {@code f} directly on the thread receiving it.
+   *
+   * @param p the place of execution
+   * @param f the function to run, which must not block
+   */
+  public void inlineAsyncAt(Place p, SerializableRunnable f) {
+    new ImmediateTask(f, true).immediateAsyncAt(p.id);
+  }
+
   /** initializes the Launcher to start new Places with. */
   private void initializeLauncher() {
     final String launcherName = Configuration.CONFIG_APGAS_LAUNCHER.get();
@@ -623,6 +926,27 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     return transport.maxPlace();
   }
 
+  /**
+   * Returns the number of resilient finish states whose primary copy is held by this place.
+   *
+   * @return the local size of the resilient store, 0 if the runtime is not resilient
+   */
+  public long localResilientFinishCount() {
+    return resilient ? resilientFinishMap.getLocalMapStats().getOwnedEntryCount() : 0;
+  }
+
+  /**
+   * Returns the partition key to use for {@link GlobalID} instances created at this place.
+   *
+   * <p>In resilient mode the key maps to a partition of the resilient store owned by this place,
+   * so that finish states created here are updated locally. Otherwise the place ID is returned.
+   *
+   * @return a partition key
+   */
+  public int partitionKey() {
+    return resilient ? transport.getLocalPartitionKey() : here;
+  }
+
   /**
    * Returns the next place
    *
@@ -983,6 +1307,9 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
     // Turn off the worker pool to stop running asynchronous tasks
     pool.shutdown();
     immediatePool.shutdown();
+    if (virtualExecutor != null) {
+      virtualExecutor.shutdown();
+    }
     // Turn off the communication layer with the other processes
     transport.shutdown();
 
@@ -1146,28 +1473,31 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
   private void notifyOtherPlaces(int expectedPlacesCount, List<Place> toRelease) {
     final GlobalRef<CountDownLatch> globalRef =
         new GlobalRef<>(new CountDownLatch(expectedPlacesCount - 1));
+    final List<Place> others = new ArrayList<>();
     for (final Place p : places()) {
-      if (p.id == here().id || (toRelease.contains(p))) {
-        continue;
+      if (p.id != here().id && !toRelease.contains(p)) {
+        others.add(p);
       }
-      final boolean verbose = verboseLauncher;
-      immediateAsyncAt(
-          p,
-          () -> {
-            if (verbose) {
-              ConsolePrinter.getInstance()
-                  .printlnAlways(
-                      p + " was informed about the new place count of " + expectedPlacesCount);
-            }
-            GlobalRuntimeImpl.getRuntime().waitForNewPlacesCount(expectedPlacesCount);
-            GlobalRuntimeImpl.getRuntime()
-                .immediateAsyncAt(
-                    globalRef.home(),
-                    () -> {
-                      globalRef.get().countDown();
-                    });
-          });
     }
+    final boolean verbose = verboseLauncher;
+    immediateAsyncAtAll(
+        others,
+        () -> {
+          if (verbose) {
+            ConsolePrinter.getInstance()
+                .printlnAlways(
+                    GlobalRuntimeImpl.getRuntime().here()
+                        + " was informed about the new place count of "
+                        + expectedPlacesCount);
+          }
+          GlobalRuntimeImpl.getRuntime().waitForNewPlacesCount(expectedPlacesCount);
+          GlobalRuntimeImpl.getRuntime()
+              .immediateAsyncAt(
+                  globalRef.home(),
+                  () -> {
+                    globalRef.get().countDown();
+                  });
+        });
     try {
       globalRef.get().await();
     } catch (final InterruptedException e) {
@@ -1200,9 +1530,13 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
       }
       for (final int id : removed) {
         placeSet.remove(new Place(id));
+        loads.remove(id);
       }
       places = Collections.unmodifiableList(new ArrayList<>(placeSet));
     }
+    if (adaptiveThreads && ForkJoinPools.canResize()) {
+      resizePool();
+    }
     if (removed.isEmpty()) {
       return;
     }
@@ -1217,8 +1551,7 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
 
           @Override
           public void compute() {
-            final Worker worker = (Worker) Thread.currentThread();
-            worker.task = null; // a handler is not a task (yet)
+            Task.setCurrent(null); // a handler is not a task (yet)
             for (final int id : removed) {
               ResilientFinishState.purge(id);
             }
@@ -1231,6 +1564,30 @@ public final class GlobalRuntimeImpl extends GlobalRuntime {
         });
   }
 
+  /**
+   * Returns the cores of the host divided by the number of places running on the host.
+   *
+   * @return the parallelism of the pool if adaptive
+   */
+  private int adaptiveParallelism() {
+    return Math.min(
+        Math.max(Runtime.getRuntime().availableProcessors() / transport.colocatedPlaces(), 1),
+        Configuration.CONFIG_APGAS_MAX_THREADS.get());
+  }
+
+  /**
+   * Sizes the pool to the cores of the host divided by the number of places running on the host.
+   */
+  private void resizePool() {
+    final int parallelism = adaptiveParallelism();
+    if (parallelism != pool.getParallelism()) {
+      ForkJoinPools.setParallelism(pool, parallelism);
+      if (verboseLauncher) {
+        System.err.println("[APGAS] Resized the worker pool to " + parallelism + " threads");
+      }
+    }
+  }
+
   private void waitForAllHazelcastMembers() {
     final long beforeStart = System.nanoTime();
     while (transport.hazelcast.getCluster().getMembers().size() < initialPlaces) {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@link ImmediateDispatcher} class runs immediate tasks on a fixed set of threads.
+ *
+ * <p>Tasks are queued in a lock-free queue. Idle threads spin briefly then park, and submitters
+ * only unpark a thread if one is idle, so that a stream of short tasks is dispatched without locks
+ * or systematic wake-ups.
+ */
+final class ImmediateDispatcher implements Executor {
+
+  /** The number of polls of an empty queue before a thread parks. */
+  private static final int SPINS = 64;
+
+  /** The queued tasks. */
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+  /** The parked threads. */
+  private final Queue<Thread> idle = new ConcurrentLinkedQueue<>();
+
+  /** The dispatcher threads. */
+  private final Thread[] threads;
+
+  /** Whether the dispatcher has been shut down. */
+  private volatile boolean shutdown;
+
+  /**
+   * Constructs and starts a dispatcher.
+   *
+   * @param n the number of threads
+   */
+  ImmediateDispatcher(int n) {
+    threads = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      threads[i] = new Thread(this::loop, "apgas-immediate-" + i);
+      threads[i].start();
+    }
+  }
+
+  /**
+   * Queues a task and wakes up an idle thread if any.
+   *
+   * @param task the task
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (shutdown) {
+      throw new RejectedExecutionException("immediate dispatcher is shut down");
+    }
+    queue.add(task);
+    final Thread thread = idle.poll();
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /** Stops the threads once the queued tasks have run. */
+  void shutdown() {
+    shutdown = true;
+    for (final Thread thread : threads) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /** Runs queued tasks until the dispatcher is shut down. */
+  private void loop() {
+    final Thread me = Thread.currentThread();
+    int spins = 0;
+    for (; ; ) {
+      final Runnable task = queue.poll();
+      if (task != null) {
+        spins = 0;
+        run(task);
+      } else if (shutdown) {
+        return;
+      } else if (spins++ < SPINS) {
+        Thread.onSpinWait();
+      } else {
+        spins = 0;
+        idle.add(me);
+        // check again after registering to not miss a task queued in between
+        if (queue.isEmpty() && !shutdown) {
+          LockSupport.park(this);
+        }
+        idle.remove(me);
+      }
+    }
+  }
+
+  /**
+   * Runs a task, reporting uncaught exceptions.
+   *
+   * @param task the task
+   */
+  static void run(Runnable task) {
+    try {
+      task.run();
+    } catch (final Throwable t) {
+      System.out.println(
+          "[APGAS] " + GlobalRuntimeImpl.getRuntime().here + " caught Exception in immediate task");
+      t.printStackTrace(System.out);
+    }
+  }
+}
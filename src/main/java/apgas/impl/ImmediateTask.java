@@ -14,6 +14,7 @@ package apgas.impl;
 import com.hazelcast.core.Member;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 
 /**
  * The {@link ImmediateTask} class represents an immediate task.
@@ -29,13 +30,27 @@ final class ImmediateTask implements SerializableRunnable {
   /** The function to run. */
   private SerializableRunnable f;
 
+  /** Whether to run the function on the thread receiving the task. */
+  private boolean inline;
+
   /**
    * Constructs a new {@link ImmediateTask}.
    *
    * @param f the function to run
    */
   ImmediateTask(SerializableRunnable f) {
+    this(f, false);
+  }
+
+  /**
+   * Constructs a new {@link ImmediateTask}.
+   *
+   * @param f the function to run
+   * @param inline whether to run {@code f} on the thread receiving the task
+   */
+  ImmediateTask(SerializableRunnable f, boolean inline) {
     this.f = f;
+    this.inline = inline;
   }
 
   /**
@@ -80,6 +95,8 @@ final class ImmediateTask implements SerializableRunnable {
    * @throws ClassNotFoundException if the class of the serialized object cannot be found
    */
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    GlobalRuntimeImpl.getRuntime().loads.read(in);
+    inline = in.readBoolean();
     try {
       f = (SerializableRunnable) in.readObject();
     } catch (final Throwable e) {
@@ -92,9 +109,25 @@ final class ImmediateTask implements SerializableRunnable {
     }
   }
 
-  /** Submits the task for asynchronous execution. */
+  /** Runs the task inline if non-blocking or submits it to the immediate pool. */
   @Override
   public void run() {
-    GlobalRuntimeImpl.getRuntime().executeImmediate(f);
+    if (inline) {
+      ImmediateDispatcher.run(f);
+    } else {
+      GlobalRuntimeImpl.getRuntime().executeImmediate(f);
+    }
+  }
+
+  /**
+   * Serializes the task.
+   *
+   * @param out the object output stream
+   * @throws IOException if I/O errors occur
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    GlobalRuntimeImpl.getRuntime().loads.write(out);
+    out.writeBoolean(inline);
+    out.writeObject(f);
   }
 }
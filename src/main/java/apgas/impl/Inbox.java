@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@link Inbox} class hands tasks received from other places over to the worker pool.
+ *
+ * <p>Transport threads append incoming tasks to a queue. A single drain task is submitted to the
+ * pool while the queue is not empty. The worker running it forks the queued tasks into its own
+ * deque, where idle workers steal them. A burst of incoming tasks therefore costs one external
+ * submission to the pool instead of one per task.
+ *
+ * <p>Tasks received before the pool is started are held until {@link #start}.
+ */
+final class Inbox {
+
+  /** The tasks received and not yet forked. */
+  private final Queue<ForkJoinTask<?>> queue = new ConcurrentLinkedQueue<>();
+
+  /** Whether a drain task is pending in the pool. */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  /** The pool running the tasks or null if not started yet. */
+  private volatile ForkJoinPool pool;
+
+  /**
+   * Starts handing tasks over to a pool, including the tasks already queued.
+   *
+   * @param pool the pool running the tasks
+   */
+  void start(ForkJoinPool pool) {
+    this.pool = pool;
+    schedule();
+  }
+
+  /**
+   * Queues a task and makes sure a drain task is pending if the pool is started.
+   *
+   * @param task the task
+   */
+  void add(ForkJoinTask<?> task) {
+    queue.add(task);
+    schedule();
+  }
+
+  private void schedule() {
+    final ForkJoinPool pool = this.pool;
+    if (pool != null && !scheduled.get() && scheduled.compareAndSet(false, true)) {
+      pool.execute(new Drain());
+    }
+  }
+
+  /** Forks the queued tasks from a worker thread. */
+  private final class Drain extends RecursiveAction {
+
+    private static final long serialVersionUID = -3518243786262470318L;
+
+    @Override
+    protected void compute() {
+      // tasks queued after this point schedule another drain
+      scheduled.set(false);
+      ForkJoinTask<?> task;
+      while ((task = queue.poll()) != null) {
+        task.fork();
+      }
+    }
+  }
+}
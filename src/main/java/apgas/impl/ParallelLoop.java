@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import apgas.SerializableLongConsumer;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The {@link ParallelLoop} class runs the iterations of a loop in parallel at the current place.
+ *
+ * <p>The range is split lazily: a task runs its iterations one by one and gives away the upper half
+ * of its remaining range as a new task only while its worker has few queued tasks that other
+ * workers could steal. Ranges are never split below a grain of 1/{@value #CHUNKS_PER_THREAD} of a
+ * thread's share of the iterations, which bounds the number of tasks when workers are idle.
+ *
+ * <p>Range lengths are computed as unsigned longs, since {@code to - from} overflows for ranges
+ * wider than {@link Long#MAX_VALUE}.
+ */
+final class ParallelLoop {
+
+  /** The minimum number of chunks per worker thread. */
+  static final int CHUNKS_PER_THREAD = 8;
+
+  /** The number of queued tasks of a worker below which a task splits its range. */
+  static final int SURPLUS = 2;
+
+  /** Prevents instantiation. */
+  private ParallelLoop() {}
+
+  /**
+   * Spawns tasks running {@code body} for each index in {@code [from, to)}.
+   *
+   * <p>The tasks are tracked by the finish of the calling task.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @param body the function to run for each index
+   */
+  static void async(long from, long to, SerializableLongConsumer body) {
+    if (from >= to) {
+      return;
+    }
+    final GlobalRuntimeImpl runtime = GlobalRuntimeImpl.getRuntime();
+    final long grain =
+        Math.max(
+            1,
+            Long.divideUnsigned(
+                to - from, (long) CHUNKS_PER_THREAD * runtime.pool.getParallelism()));
+    runtime.asyncFork(() -> run(from, to, grain, body));
+  }
+
+  /**
+   * Runs {@code body} for each index in {@code [from, to)}, splitting the range lazily.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @param grain the size below which the range is not split
+   * @param body the function to run for each index
+   * @throws Exception if {@code body} throws an exception
+   */
+  private static void run(long from, long to, long grain, SerializableLongConsumer body)
+      throws Exception {
+    final GlobalRuntimeImpl runtime = GlobalRuntimeImpl.getRuntime();
+    long end = to;
+    for (long i = from; i < end; i++) {
+      if (Long.compareUnsigned(end - i, grain) > 0
+          && ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS) {
+        final long mid = i + ((end - i) >>> 1);
+        final long hi = end;
+        runtime.asyncFork(() -> run(mid, hi, grain, body));
+        end = mid;
+      }
+      body.accept(i);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * The {@link PlaceLoads} class keeps track of the load of the places to place tasks submitted with
+ * {@link GlobalRuntimeImpl#asyncAny}.
+ *
+ * <p>The load of a place is the number of tasks queued or running in its pool. Each task message
+ * carries the load of its source place, so that load information spreads with the existing traffic.
+ * Information older than {@link #MAX_AGE} is ignored.
+ *
+ * <p>Since every message carries a load, the load of the current place is sampled at most once
+ * every {@link #SAMPLE_PERIOD} and the last reported load of each place is updated in place, so
+ * that programs that never use {@code asyncAny} pay little for it.
+ */
+final class PlaceLoads {
+
+  /** The age after which the load reported by a place is ignored (in nanoseconds). */
+  static final long MAX_AGE = TimeUnit.SECONDS.toNanos(1);
+
+  /** The minimal delay between two samples of the load of the current place (in nanoseconds). */
+  static final long SAMPLE_PERIOD = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /** The last load reported by each place. */
+  private final Map<Integer, Load> loads = new ConcurrentHashMap<>();
+
+  /** The ID of the current place, known once the transport is up. */
+  private final IntSupplier here;
+
+  /** The pool of the current place. */
+  private final ForkJoinPool pool;
+
+  /** The last sampled load of the current place. */
+  private volatile int sample;
+
+  /** The time of the last sample of the load of the current place (in nanoseconds). */
+  private volatile long sampleTime = System.nanoTime() - SAMPLE_PERIOD;
+
+  /**
+   * Constructs a load table.
+   *
+   * @param runtime the runtime instance
+   */
+  PlaceLoads(GlobalRuntimeImpl runtime) {
+    this(() -> runtime.here, runtime.pool);
+  }
+
+  /**
+   * Constructs a load table.
+   *
+   * @param here the ID of the current place
+   * @param pool the pool of the current place
+   */
+  PlaceLoads(IntSupplier here, ForkJoinPool pool) {
+    this.here = here;
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the load of the current place.
+   *
+   * @return the number of tasks queued or running in the pool
+   */
+  int local() {
+    final long load =
+        pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount() + pool.getActiveThreadCount();
+    return (int) Math.min(load, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the load of the current place sampled at most {@link #SAMPLE_PERIOD} ago.
+   *
+   * @return the number of tasks queued or running in the pool
+   */
+  int sampled() {
+    final long now = System.nanoTime();
+    if (now - sampleTime >= SAMPLE_PERIOD) {
+      // concurrent refreshes are harmless
+      sampleTime = now;
+      sample = local();
+    }
+    return sample;
+  }
+
+  /**
+   * Assigns tasks to places, preferring the current place as long as its pool has no more tasks
+   * than worker threads, then the least loaded places.
+   *
+   * @param n the number of tasks
+   * @return the ID of the place of each task
+   */
+  int[] assign(int n) {
+    final int[] result = new int[n];
+    final int here = this.here.getAsInt();
+    final int threshold = pool.getParallelism();
+    int local = local();
+    final long now = System.nanoTime();
+    final Map<Integer, Integer> remote = new HashMap<>();
+    for (final Map.Entry<Integer, Load> entry : loads.entrySet()) {
+      if (now - entry.getValue().time <= MAX_AGE && entry.getKey() != here) {
+        remote.put(entry.getKey(), entry.getValue().load);
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      int best = here;
+      int bestLoad = local;
+      if (local >= threshold) {
+        for (final Map.Entry<Integer, Integer> entry : remote.entrySet()) {
+          if (entry.getValue() < bestLoad) {
+            best = entry.getKey();
+            bestLoad = entry.getValue();
+          }
+        }
+      }
+      result[i] = best;
+      if (best == here) {
+        local++;
+      } else {
+        remote.put(best, bestLoad + 1);
+        // account for the task until the place reports its load again
+        final Load load = loads.get(best);
+        if (load != null) {
+          load.load++;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Forgets the load of a place.
+   *
+   * @param id the ID of the place
+   */
+  void remove(int id) {
+    loads.remove(id);
+  }
+
+  /**
+   * Writes the ID and load of the current place to a task message.
+   *
+   * @param out the object output stream
+   * @throws IOException if I/O errors occur
+   */
+  void write(ObjectOutputStream out) throws IOException {
+    out.writeInt(here.getAsInt());
+    out.writeInt(sampled());
+  }
+
+  /**
+   * Reads the ID and load of the source place of a task message.
+   *
+   * @param in the object input stream
+   * @throws IOException if I/O errors occur
+   */
+  void read(ObjectInputStream in) throws IOException {
+    final int id = in.readInt();
+    update(id, in.readInt());
+  }
+
+  /**
+   * Records the load reported by a place.
+   *
+   * @param id the ID of the place
+   * @param load the number of tasks queued or running at the place
+   */
+  void update(int id, int load) {
+    final Load entry = loads.get(id);
+    if (entry == null) {
+      loads.put(id, new Load(load, System.nanoTime()));
+    } else {
+      entry.load = load;
+      entry.time = System.nanoTime();
+    }
+  }
+
+  /**
+   * A load reported by a place.
+   *
+   * <p>The fields are updated without synchronization. A reader may see a load together with the
+   * time of a neighboring report, which is fine for a placement heuristic.
+   */
+  private static final class Load {
+
+    /** The number of tasks queued or running. */
+    private volatile int load;
+
+    /** The time the load was received (in nanoseconds). */
+    private volatile long time;
+
+    private Load(int load, long time) {
+      this.load = load;
+      this.time = time;
+    }
+  }
+}
@@ -18,6 +18,8 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /** The {@link ResilientFinish} class implements a finish construct resilient to place failure. */
 class ResilientFinish implements Serializable, Finish {
@@ -27,6 +29,9 @@ class ResilientFinish implements Serializable, Finish {
   /** The unique id of this finish instance. */
   protected GlobalID id;
 
+  /** The thread parked in {@link #park()} if any. */
+  private transient volatile Thread waiter;
+
   /** Allocates but does not construct a resilient finish instance (for lazy initialization). */
   protected ResilientFinish() {}
 
@@ -74,6 +79,28 @@ class ResilientFinish implements Serializable, Finish {
     return true;
   }
 
+  @Override
+  public void park() {
+    final String reg = ResilientFinishState.addListener(this);
+    waiter = Thread.currentThread();
+    while (!isDone()) {
+      LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+    }
+    waiter = null;
+    ResilientFinishState.removeListener(reg);
+  }
+
+  /** Wakes up the threads waiting for this finish to check its resilient state again. */
+  void release() {
+    synchronized (this) {
+      notifyAll();
+    }
+    final Thread t = waiter;
+    if (t != null) {
+      LockSupport.unpark(t);
+    }
+  }
+
   @Override
   public List<Throwable> exceptions() {
     final int here = GlobalRuntimeImpl.getRuntime().here;
@@ -100,13 +127,21 @@ class ResilientFinish implements Serializable, Finish {
   }
 
   /**
-   * Does the buld of the finish construction.
+   * Does the bulk of the finish construction.
    *
    * @param parent the parent finish instance
    */
   protected void init(Finish parent) {
+    init(parent instanceof ResilientFinish ? ((ResilientFinish) parent).id : null);
+  }
+
+  /**
+   * Does the bulk of the finish construction.
+   *
+   * @param pid the ID of the resilient finish to register this finish with, or null
+   */
+  protected void init(GlobalID pid) {
     id = new GlobalID();
-    final GlobalID pid = parent instanceof ResilientFinish ? ((ResilientFinish) parent).id : null;
     final int here = GlobalRuntimeImpl.getRuntime().here;
     ResilientFinishState.update(id, state -> new ResilientFinishState(pid, here));
     if (pid == null) {
@@ -11,9 +11,11 @@
 
 package apgas.impl;
 
+import apgas.util.GlobalID;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /** The {link ResilientFinishOpt} encapsulates a lazily initialized resilient finish instance. */
 final class ResilientFinishOpt implements Serializable, Finish {
@@ -25,6 +27,7 @@ final class ResilientFinishOpt implements Serializable, Finish {
   private transient List<Throwable> exceptions; // root exceptions
   // for all instances
   private transient int local; // local task count - 1
+  private transient volatile Thread waiter; // thread parked in park() if any
 
   private ResilientFinishOpt(Finish parent) {
     this.parent = parent;
@@ -63,6 +66,26 @@ final class ResilientFinishOpt implements Serializable, Finish {
     return finish.block(); // block on resilient state
   }
 
+  @Override
+  public void park() {
+    waiter = Thread.currentThread();
+    while (true) {
+      synchronized (this) {
+        if (local < 0) {
+          break; // done with local subtasks of this finish instance
+        }
+      }
+      LockSupport.park(this);
+    }
+    waiter = null;
+    synchronized (finish) {
+      if (finish.id == null) {
+        return; // not resilient, we are done
+      }
+    }
+    finish.park(); // park on resilient state
+  }
+
   @Override
   public List<Throwable> exceptions() {
     synchronized (finish) {
@@ -83,15 +106,36 @@ final class ResilientFinishOpt implements Serializable, Finish {
     return exceptions;
   }
 
+  /**
+   * Returns the ID of the nearest ancestor with a resilient state if any.
+   *
+   * <p>Ancestors without resilient state have only local tasks. They complete after this finish
+   * at this place or die together with it, so it is sufficient to register this finish with the
+   * nearest ancestor that already has remote tasks.
+   *
+   * @return the ID of the nearest resilient ancestor or null
+   */
+  private GlobalID resilientAncestorId() {
+    Finish f = parent;
+    while (f instanceof ResilientFinishOpt) {
+      final ResilientFinishOpt opt = (ResilientFinishOpt) f;
+      synchronized (opt.finish) {
+        if (opt.finish.id != null) {
+          return opt.finish.id;
+        }
+      }
+      f = opt.parent;
+    }
+    return f instanceof ResilientFinish ? ((ResilientFinish) f).id : null;
+  }
+
   private void init() {
     synchronized (finish) {
       if (finish.id != null) {
         return; // already initialized
       }
-      if (parent instanceof ResilientFinishOpt) {
-        ((ResilientFinishOpt) parent).init(); // initializes parents first
-      }
-      finish.init(parent); // initializes resilient state
+      // parents are not initialized, only registered with if they already are
+      finish.init(resilientAncestorId()); // initializes resilient state
     }
   }
 
@@ -136,6 +180,10 @@ final class ResilientFinishOpt implements Serializable, Finish {
       }
       notifyAll(); // unblock
     }
+    final Thread t = waiter;
+    if (t != null) {
+      LockSupport.unpark(t);
+    }
     synchronized (finish) {
       if (finish.id == null) {
         return; // not resilient
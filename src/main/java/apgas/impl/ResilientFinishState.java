@@ -25,6 +25,7 @@ import com.hazelcast.map.AbstractEntryProcessor;
 import com.hazelcast.map.listener.EntryRemovedListener;
 import com.hazelcast.map.listener.EntryUpdatedListener;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -39,6 +40,15 @@ import java.util.Set;
  */
 final class ResilientFinishState extends IncrementalEntryValue implements Serializable {
 
+  /** The indexed attribute of the resilient store listing the places involved in a finish. */
+  static final String PLACES_ATTRIBUTE = "places[any]";
+
+  /** The indexed attribute of the resilient store holding the place ID of a finish. */
+  static final String HOME_ATTRIBUTE = "home";
+
+  /** The indexed attribute of the resilient store holding the completion time of a finish. */
+  static final String COMPLETION_TIME_ATTRIBUTE = "completionTime";
+
   /** ExactlyOnceExecutor for making sure EntryProcessors are only executed once per partition. */
   static final ExactlyOnceExecutor<GlobalID, ResilientFinishState> exactlyOnceExecutor =
       new ExactlyOnceExecutor<>();
@@ -63,8 +73,14 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
   /** The exceptions reported to this finish so far. */
   private List<SerializableThrowable> exceptions;
 
-  /** The largest place ID encountered so far. */
-  private int max;
+  /** The place ID of the finish. */
+  private final int home;
+
+  /**
+   * The time in milliseconds at which this finish was found to be complete, or {@link
+   * Long#MAX_VALUE} if it is not complete yet.
+   */
+  private long completionTime = Long.MAX_VALUE;
 
   /**
    * Constructs a resilient finish state.
@@ -73,7 +89,7 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
    * @param p the place ID of the finish
    */
   ResilientFinishState(GlobalID pid, int p) {
-    max = p;
+    home = p;
     this.pid = pid;
     counts.put(index(p, p), 1);
   }
@@ -156,42 +172,41 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
   /**
    * Updates the finish states when a place dies.
    *
+   * <p>The finish states that involve the dead place are located using the {@link
+   * #PLACES_ATTRIBUTE} index of the resilient store and their counters are cleared in a single
+   * batched operation. The death is then recorded in the remaining states of the current place so
+   * that these finishes reject tasks to and from the dead place. Since the death of a place is
+   * recorded in each state, processing the same death twice is harmless.
+   *
    * @param p the dead place ID
    */
   static void purge(int p) {
     final int here = GlobalRuntimeImpl.getRuntime().here;
     // only process finish states for the current place and the dead place
-    final Predicate<GlobalID, ResilientFinishState> predicate =
-        entry -> (entry.getKey().home.id == here || entry.getKey().home.id == p);
-    for (final GlobalID id : GlobalRuntimeImpl.getRuntime().resilientFinishMap.keySet(predicate)) {
-      submit(
-          id,
-          state -> {
-            if (state == null) {
-              // entry has been removed already, ignore
-              return null;
-            }
-            if (state.deads == null) {
-              state.deads = new HashSet<>();
-            }
-            if (state.deads.contains(p)) {
-              // death of p has already been processed
-              return null;
-            }
-            state.deads.add(p);
-            final int count = state.counts.size();
-            for (int i = 0; i <= state.max; i++) {
-              state.clear(p, i);
-              state.clear(i, p);
-            }
-            if (state.counts.size() < count) {
-              if (state.exceptions == null) {
-                state.exceptions = new ArrayList<>();
-              }
-              state.exceptions.add(new SerializableThrowable(new DeadPlaceException(new Place(p))));
-            }
-            return state;
-          });
+    final Predicate<GlobalID, ResilientFinishState> involved =
+        Predicates.and(
+            Predicates.equal(PLACES_ATTRIBUTE, p),
+            Predicates.or(
+                Predicates.equal(HOME_ATTRIBUTE, here), Predicates.equal(HOME_ATTRIBUTE, p)));
+    final Map<GlobalID, Object> pids;
+    try {
+      pids =
+          GlobalRuntimeImpl.getRuntime()
+              .resilientFinishMap
+              .executeOnEntries(new PurgeProcessor(p), involved);
+      // the states homed at p always involve p, only the states of here may remain
+      GlobalRuntimeImpl.getRuntime()
+          .resilientFinishMap
+          .executeOnEntries(new DeadProcessor(p), Predicates.equal(HOME_ATTRIBUTE, here));
+    } catch (final DeadPlaceError | HazelcastInstanceNotActiveException e) {
+      // this place is dead for the world
+      System.exit(42);
+      throw e;
+    }
+    for (final Map.Entry<GlobalID, Object> entry : pids.entrySet()) {
+      if (entry.getValue() != null) {
+        notifyParent(entry.getKey(), (GlobalID) entry.getValue());
+      }
     }
   }
 
@@ -220,25 +235,7 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
 
           @Override
           public GlobalID process(Map.Entry<GlobalID, ResilientFinishState> entry) {
-            final ResilientFinishState state = processor.process(entry.getValue());
-            if (state == null) {
-              return null;
-            }
-            if (state.counts.size() > 0
-                || state.cids != null && !state.cids.isEmpty()
-                || state.deads == null
-                || !state.deads.contains(id.home.id)) {
-              // state is still useful:
-              // finish is incomplete or we need to preserve its exceptions
-              entry.setValue(state);
-            } else {
-              // finish is complete and place of finish has died, remove entry
-              entry.setValue(null);
-            }
-            if (state.counts.size() > 0 || state.cids != null && !state.cids.isEmpty()) {
-              return null;
-            }
-            return state.pid;
+            return store(entry, processor.process(entry.getValue()));
           }
         },
         new ExecutionCallback<GlobalID>() {
@@ -256,28 +253,90 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
             if (pid == null) {
               return;
             }
-            submit(
-                pid,
-                state -> {
-                  if (state == null) {
-                    // parent has been purged already
-                    // stop propagating termination
-                    return null;
-                  }
-                  if (state.cids != null && state.cids.contains(id)) {
-                    state.cids.remove(id);
-                  } else {
-                    if (state.dids == null) {
-                      state.dids = new HashSet<>();
-                    }
-                    state.dids.add(id);
-                  }
-                  return state;
-                });
+            notifyParent(id, pid);
           }
         });
   }
 
+  /**
+   * Stores an updated finish state in its entry, removing the entry if it is no longer useful.
+   *
+   * @param entry the entry to update
+   * @param state the updated state or null if the entry should be left as is
+   * @return the ID of the parent finish if the finish is complete, null otherwise
+   */
+  private static GlobalID store(
+      Map.Entry<GlobalID, ResilientFinishState> entry, ResilientFinishState state) {
+    if (state == null) {
+      return null;
+    }
+    if (state.counts.size() > 0
+        || state.cids != null && !state.cids.isEmpty()
+        || state.deads == null
+        || !state.deads.contains(entry.getKey().home.id)) {
+      // state is still useful:
+      // finish is incomplete or we need to preserve its exceptions
+      entry.setValue(state);
+    } else {
+      // finish is complete and place of finish has died, remove entry
+      entry.setValue(null);
+    }
+    if (state.counts.size() > 0 || state.cids != null && !state.cids.isEmpty()) {
+      return null;
+    }
+    if (state.completionTime == Long.MAX_VALUE) {
+      state.completionTime = System.currentTimeMillis();
+    }
+    return state.pid;
+  }
+
+  /**
+   * Removes the states of the finishes that completed more than {@code retention} milliseconds ago
+   * and were not collected by their home place.
+   *
+   * <p>Completed states are normally removed by {@link ResilientFinish#exceptions()}. This bounds
+   * the lifetime of the states whose home place never collects them.
+   *
+   * @param retention the retention window in milliseconds
+   * @return the number of removed states
+   */
+  static int evict(long retention) {
+    final long deadline = System.currentTimeMillis() - retention;
+    final Predicate<GlobalID, ResilientFinishState> predicate =
+        Predicates.lessThan(COMPLETION_TIME_ATTRIBUTE, deadline);
+    return GlobalRuntimeImpl.getRuntime()
+        .resilientFinishMap
+        .executeOnEntries(new EvictProcessor(deadline), predicate)
+        .size();
+  }
+
+  /**
+   * Propagates the termination of a finish to its parent.
+   *
+   * @param id the ID of the completed finish
+   * @param pid the ID of the parent finish
+   */
+  private static void notifyParent(GlobalID id, GlobalID pid) {
+    submit(
+        pid,
+        state -> {
+          if (state == null) {
+            // parent has been purged already
+            // stop propagating termination
+            return null;
+          }
+          if (state.cids != null && state.cids.contains(id)) {
+            state.cids.remove(id);
+          } else {
+            if (state.dids == null) {
+              state.dids = new HashSet<>();
+            }
+            state.dids.add(id);
+          }
+          return state;
+        });
+  }
+
   /**
    * Updates a resilient finish state.
    *
@@ -317,13 +376,13 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
   }
 
   /**
-   * Clears (p, q) counter.
+   * Clears all the counters involving place p as source or destination.
    *
-   * @param p source place ID
-   * @param q destination place ID
+   * @param p the place ID
+   * @return true if at least one counter was cleared
    */
-  void clear(int p, int q) {
-    counts.remove(index(p, q));
+  boolean clear(int p) {
+    return counts.keySet().removeIf(index -> (int) (index >>> 32) == p || index.intValue() == p);
   }
 
   /**
@@ -333,12 +392,6 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
    * @param q destination place ID
    */
   void decr(int p, int q) {
-    if (p > max) {
-      max = p;
-    }
-    if (q > max) {
-      max = q;
-    }
     add(index(p, q), -1);
   }
 
@@ -358,6 +411,32 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
     return deads;
   }
 
+  public long getCompletionTime() {
+    return completionTime;
+  }
+
+  public int getHome() {
+    return home;
+  }
+
+  /**
+   * Returns the IDs of the places involved in this finish: the place of the finish and the source
+   * and destination places of all the non-zero task counters.
+   *
+   * <p>This is the attribute indexed by the resilient store as {@link #PLACES_ATTRIBUTE}.
+   *
+   * @return the involved places
+   */
+  public Set<Integer> getPlaces() {
+    final Set<Integer> places = new HashSet<>();
+    places.add(home);
+    for (final long index : counts.keySet()) {
+      places.add((int) (index >>> 32));
+      places.add((int) index);
+    }
+    return places;
+  }
+
   public Set<GlobalID> getDids() {
     return dids;
   }
@@ -377,12 +456,6 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
    * @param q destination place ID
    */
   void incr(int p, int q) {
-    if (p > max) {
-      max = p;
-    }
-    if (q > max) {
-      max = q;
-    }
     add(index(p, q), 1);
   }
 
@@ -416,6 +489,105 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
     ResilientFinishState process(ResilientFinishState state);
   }
 
+  /** The entry processor applied to the finish states involving a dead place. */
+  private static class PurgeProcessor
+      extends AbstractEntryProcessor<GlobalID, ResilientFinishState> {
+
+    private static final long serialVersionUID = -3052606331496584236L;
+
+    /** The dead place ID. */
+    private final int p;
+
+    private PurgeProcessor(int p) {
+      super(true);
+      this.p = p;
+    }
+
+    @Override
+    public GlobalID process(Map.Entry<GlobalID, ResilientFinishState> entry) {
+      final ResilientFinishState state = entry.getValue();
+      if (state == null) {
+        // entry has been removed already, ignore
+        return null;
+      }
+      if (state.deads == null) {
+        state.deads = new HashSet<>();
+      }
+      if (state.deads.contains(p)) {
+        // death of p has already been processed
+        return null;
+      }
+      state.deads.add(p);
+      if (state.clear(p)) {
+        if (state.exceptions == null) {
+          state.exceptions = new ArrayList<>();
+        }
+        state.exceptions.add(new SerializableThrowable(new DeadPlaceException(new Place(p))));
+      }
+      return store(entry, state);
+    }
+  }
+
+  /**
+   * The entry processor recording the death of a place in the finish states that do not involve
+   * it.
+   */
+  private static class DeadProcessor
+      extends AbstractEntryProcessor<GlobalID, ResilientFinishState> {
+
+    private static final long serialVersionUID = 4409183771270523658L;
+
+    /** The dead place ID. */
+    private final int p;
+
+    private DeadProcessor(int p) {
+      super(true);
+      this.p = p;
+    }
+
+    @Override
+    public Object process(Map.Entry<GlobalID, ResilientFinishState> entry) {
+      final ResilientFinishState state = entry.getValue();
+      if (state == null || state.deads != null && state.deads.contains(p)) {
+        // entry has been removed or purged already, ignore
+        return null;
+      }
+      if (state.deads == null) {
+        state.deads = new HashSet<>();
+      }
+      state.deads.add(p);
+      entry.setValue(state);
+      return null;
+    }
+  }
+
+  /** The entry processor removing the finish states completed before a deadline. */
+  private static class EvictProcessor
+      extends AbstractEntryProcessor<GlobalID, ResilientFinishState> {
+
+    private static final long serialVersionUID = 2811707435592939283L;
+
+    /** The deadline in milliseconds. */
+    private final long deadline;
+
+    private EvictProcessor(long deadline) {
+      super(true);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public Object process(Map.Entry<GlobalID, ResilientFinishState> entry) {
+      final ResilientFinishState state = entry.getValue();
+      if (state != null
+          && state.completionTime < deadline
+          && state.counts.isEmpty()
+          && (state.cids == null || state.cids.isEmpty())) {
+        entry.setValue(null);
+      }
+      return null;
+    }
+  }
+
   private static class EntryUpdatedOrRemovedListener
       implements EntryUpdatedListener<GlobalID, ResilientFinishState>,
           EntryRemovedListener<GlobalID, ResilientFinishState> {
@@ -428,16 +600,12 @@ final class ResilientFinishState extends IncrementalEntryValue implements Serial
 
     @Override
     public void entryRemoved(EntryEvent<GlobalID, ResilientFinishState> event) {
-      synchronized (finish) {
-        finish.notifyAll();
-      }
+      finish.release();
     }
 
     @Override
     public void entryUpdated(EntryEvent<GlobalID, ResilientFinishState> event) {
-      synchronized (finish) {
-        finish.notifyAll();
-      }
+      finish.release();
     }
   }
 }
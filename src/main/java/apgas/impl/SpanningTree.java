@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import apgas.DeadPlaceException;
+import apgas.Place;
+import apgas.SerializableJob;
+import java.util.Arrays;
+
+/**
+ * The {@link SpanningTree} class spawns a task at each place of a collection along a k-ary tree.
+ *
+ * <p>The places are split into {@link #ARITY} ranges. The first place of each range receives the
+ * rest of its range, splits it in turn, forwards the sub-ranges, and then runs the task. A
+ * broadcast to P places thus takes O(log P) message hops instead of P sends from the origin.
+ */
+final class SpanningTree {
+
+  /** The number of children of each node of the tree. */
+  static final int ARITY = 4;
+
+  /** Prevents instantiation. */
+  private SpanningTree() {}
+
+  /**
+   * Spawns {@code f} at the given places with counted tasks.
+   *
+   * <p>The tasks are tracked by the finish of the calling task. A {@link DeadPlaceException}
+   * raised while sending to a place is reported to the finish and the rest of its range is served
+   * from the current place.
+   *
+   * @param ids the IDs of the places
+   * @param f the function to run
+   */
+  static void asyncAt(int[] ids, SerializableJob f) {
+    final GlobalRuntimeImpl runtime = GlobalRuntimeImpl.getRuntime();
+    final int k = Math.min(ARITY, ids.length);
+    for (int i = 0; i < k; i++) {
+      final int[] range = Arrays.copyOfRange(ids, i * ids.length / k, (i + 1) * ids.length / k);
+      final int[] rest = Arrays.copyOfRange(range, 1, range.length);
+      try {
+        runtime.asyncAt(
+            new Place(range[0]),
+            () -> {
+              asyncAt(rest, f);
+              f.run();
+            });
+      } catch (final DeadPlaceException e) {
+        runtime.asyncAt(
+            runtime.here(),
+            () -> {
+              throw e;
+            });
+        asyncAt(rest, f);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code f} at the given places with immediate tasks.
+   *
+   * <p>The tasks are not tracked by any finish. Each place runs {@code f} before forwarding, so
+   * that {@code f} may wait for the current place to learn about places added recently. The rest of
+   * the range is forwarded even if {@code f} throws an exception. Places found dead while sending
+   * are skipped and the rest of their range is served from the current place.
+   *
+   * @param ids the IDs of the places
+   * @param f the function to run
+   */
+  static void immediateAsyncAt(int[] ids, SerializableRunnable f) {
+    final GlobalRuntimeImpl runtime = GlobalRuntimeImpl.getRuntime();
+    final int k = Math.min(ARITY, ids.length);
+    for (int i = 0; i < k; i++) {
+      final int[] range = Arrays.copyOfRange(ids, i * ids.length / k, (i + 1) * ids.length / k);
+      final int[] rest = Arrays.copyOfRange(range, 1, range.length);
+      try {
+        runtime.immediateAsyncAt(
+            new Place(range[0]),
+            () -> {
+              try {
+                f.run();
+              } finally {
+                // forward even if f fails, not to leave the subtree behind
+                immediateAsyncAt(rest, f);
+              }
+            });
+      } catch (final DeadPlaceException e) {
+        immediateAsyncAt(rest, f);
+      }
+    }
+  }
+}
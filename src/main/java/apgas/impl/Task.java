@@ -14,7 +14,10 @@ package apgas.impl;
 import static apgas.Constructs.here;
 
 import apgas.DeadPlaceException;
+import apgas.Priority;
 import apgas.SerializableJob;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -26,6 +29,11 @@ import java.util.concurrent.RecursiveAction;
  * The {@link Task} class represents an APGAS task.
  *
  * <p>This class implements task serialization and handles errors in the serialization process.
+ *
+ * <p>Once {@link #deferDeserialization()} has been called at a place, the tasks sent from the place
+ * carry their function as a nested byte array, which the destination deserializes when the task
+ * starts rather than on the thread receiving the message. Objects that run user code when
+ * deserialized, such as lazily-initialized place local objects, then run it in the task.
  */
 public final class Task extends RecursiveAction implements SerializableRunnable {
 
@@ -33,15 +41,27 @@ public final class Task extends RecursiveAction implements SerializableRunnable
 
   private static final long serialVersionUID = 5288338719050788305L;
 
+  /** Whether the functions of the tasks sent from this place are deserialized when they start. */
+  private static volatile boolean deferred;
+
+  /** The current task of the threads that are not {@link Worker} threads. */
+  private static final ThreadLocal<Task> current = new ThreadLocal<>();
+
   /** The finish object for this {@link Task} instance. */
   Finish finish;
 
   /** The function to run. */
   private SerializableJob f;
 
+  /** The serialized function to run if its deserialization is deferred or null. */
+  private byte[] body;
+
   /** The place of the parent task. */
   private int parent;
 
+  /** The scheduling priority of this task. */
+  private Priority priority;
+
   /**
    * Constructs a new {@link Task}.
    *
@@ -50,9 +70,57 @@ public final class Task extends RecursiveAction implements SerializableRunnable
    * @param parent the place of the parent task
    */
   Task(Finish finish, SerializableJob f, int parent) {
+    this(finish, f, parent, Priority.NORMAL);
+  }
+
+  /**
+   * Constructs a new {@link Task}.
+   *
+   * @param f the function to run
+   * @param finish the finish object for this task
+   * @param parent the place of the parent task
+   * @param priority the scheduling priority of this task
+   */
+  Task(Finish finish, SerializableJob f, int parent, Priority priority) {
     this.finish = finish;
     this.f = f;
     this.parent = parent;
+    this.priority = priority;
+  }
+
+  /**
+   * Defers the deserialization of the functions of the tasks sent from the current place until
+   * the tasks start at their destination.
+   *
+   * <p>Functions deserialized when the task starts are reported to the finish of the task if they
+   * fail to deserialize, like any exception thrown by the task.
+   */
+  public static void deferDeserialization() {
+    deferred = true;
+  }
+
+  /**
+   * Returns the task running on the current thread.
+   *
+   * @return the current task or null if none
+   */
+  static Task current() {
+    final Thread t = Thread.currentThread();
+    return t instanceof Worker ? ((Worker) t).task : current.get();
+  }
+
+  /**
+   * Sets the task running on the current thread.
+   *
+   * @param task the current task or null if none
+   */
+  static void setCurrent(Task task) {
+    final Thread t = Thread.currentThread();
+    if (t instanceof Worker) {
+      ((Worker) t).task = task;
+    } else {
+      current.set(task);
+    }
   }
 
   /**
@@ -87,12 +155,22 @@ public final class Task extends RecursiveAction implements SerializableRunnable
     }
   }
 
-  /** Runs the task and notify the task's finish upon termination. */
+  /**
+   * Runs the pending high priority tasks if this is a normal task started by the scheduler rather
+   * than inline by another task, then runs the task and notify the task's finish upon termination.
+   */
   @Override
   protected void compute() {
-    final Worker worker = (Worker) Thread.currentThread();
-    worker.task = this;
+    final Task savedTask = current();
+    if (priority == Priority.NORMAL && savedTask == null) {
+      GlobalRuntimeImpl.getRuntime().runUrgent();
+    }
+    setCurrent(this);
     try {
+      if (body != null) {
+        f = (SerializableJob) deserialize(body);
+        body = null;
+      }
       f.run();
     } catch (final Throwable t) {
       System.out.println("[APGAS] " + here() + " caught Exception");
@@ -100,16 +178,26 @@ public final class Task extends RecursiveAction implements SerializableRunnable
       finish.addSuppressed(t);
     }
     finish.tell();
+    setCurrent(savedTask);
   }
 
   /**
    * Runs the tasks, notify the task's finish upon termination, and wait for the task's finish to
    * terminate.
    *
+   * <p>Virtual threads run the task inline and park until the finish is releasable instead of
+   * calling {@link ForkJoinPool#managedBlock}. Worker threads help with queued tasks before
+   * blocking, as selected by {@link apgas.Configuration#APGAS_FINISH_HELP_PROPERTY}.
+   *
    * @param worker the worker thread running the task or null if not a worker thread
    */
   void finish(Worker worker) {
-    if (worker == null) {
+    if (worker == null && VirtualThreads.isVirtual(Thread.currentThread())) {
+      final Task savedTask = current();
+      compute();
+      finish.park();
+      setCurrent(savedTask);
+    } else if (worker == null) {
       async(null);
       try {
         ForkJoinPool.managedBlock(finish);
@@ -118,12 +206,16 @@ public final class Task extends RecursiveAction implements SerializableRunnable
     } else {
       final Task savedTask = worker.task;
       compute();
-      Task t;
+      if (worker.depth < GlobalRuntimeImpl.getRuntime().helpDepth) {
+        helpAny(worker);
+      }
+      ForkJoinTask<?> t;
+      // the local queue may also hold inbox drains
       while (!finish.isReleasable()
-          && (t = (Task) ForkJoinTask.peekNextLocalTask()) != null
-          && finish == t.finish
+          && (t = ForkJoinTask.peekNextLocalTask()) instanceof Task
+          && finish == ((Task) t).finish
           && t.tryUnfork()) {
-        t.compute();
+        ((Task) t).compute();
       }
       try {
         ForkJoinPool.managedBlock(finish);
@@ -133,6 +225,28 @@ public final class Task extends RecursiveAction implements SerializableRunnable
     }
   }
 
+  /**
+   * Runs queued tasks of any finish until this task's finish is releasable or no task can be found
+   * in the local queue or stolen from other workers.
+   *
+   * @param worker the worker thread waiting for this task's finish
+   */
+  private void helpAny(Worker worker) {
+    worker.depth++;
+    try {
+      ForkJoinTask<?> t;
+      while (!finish.isReleasable() && (t = pollTask()) != null) {
+        if (t instanceof Task) {
+          ((Task) t).compute();
+        } else {
+          t.quietlyInvoke();
+        }
+      }
+    } finally {
+      worker.depth--;
+    }
+  }
+
   /**
    * Returns the finish managing this task
    *
@@ -155,19 +269,30 @@ public final class Task extends RecursiveAction implements SerializableRunnable
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
     finish = (Finish) in.readObject();
     parent = in.readInt();
+    priority = Priority.values()[in.readByte()];
+    GlobalRuntimeImpl.getRuntime().loads.read(in);
     try {
-      f = (SerializableJob) in.readObject();
+      if (in.readBoolean()) {
+        body = (byte[]) in.readObject();
+      } else {
+        f = (SerializableJob) in.readObject();
+      }
     } catch (final Throwable e) {
       finish.addSuppressed(e);
       f = NULL;
     }
   }
 
-  /** Submits the task for asynchronous execution. */
+  /** Submits the task received from another place for asynchronous execution. */
   @Override
   public void run() {
     try {
-      async(null);
+      finish.submit(parent);
+      if (priority == Priority.HIGH) {
+        GlobalRuntimeImpl.getRuntime().receiveUrgent(this);
+      } else {
+        GlobalRuntimeImpl.getRuntime().receive(this);
+      }
     } catch (final DeadPlaceException e) {
       // source place has died while task was in transit, discard
     }
@@ -182,6 +307,43 @@ public final class Task extends RecursiveAction implements SerializableRunnable
   private void writeObject(ObjectOutputStream out) throws IOException {
     out.writeObject(finish);
     out.writeInt(parent);
-    out.writeObject(f);
+    out.writeByte(priority.ordinal());
+    GlobalRuntimeImpl.getRuntime().loads.write(out);
+    writeBody(out, f);
+  }
+
+  /**
+   * Writes the function of a task, as a nested byte array if its deserialization is deferred.
+   *
+   * @param out the object output stream
+   * @param f the function
+   * @throws IOException if I/O errors occur
+   */
+  static void writeBody(ObjectOutputStream out, Object f) throws IOException {
+    final boolean deferred = Task.deferred;
+    out.writeBoolean(deferred);
+    if (deferred) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream nested = new ObjectOutputStream(bytes)) {
+        nested.writeObject(f);
+      }
+      out.writeObject(bytes.toByteArray());
+    } else {
+      out.writeObject(f);
+    }
+  }
+
+  /**
+   * Deserializes a function written as a nested byte array.
+   *
+   * @param body the serialized function
+   * @return the function
+   * @throws IOException if I/O errors occur
+   * @throws ClassNotFoundException if the class of the serialized object cannot be found
+   */
+  static Object deserialize(byte[] body) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body))) {
+      return in.readObject();
+    }
   }
 }
@@ -20,6 +20,7 @@ import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.JoinConfig;
 import com.hazelcast.config.ListConfig;
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapIndexConfig;
 import com.hazelcast.config.NetworkConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
@@ -30,6 +31,8 @@ import com.hazelcast.core.InitialMembershipListener;
 import com.hazelcast.core.Member;
 import com.hazelcast.core.MemberAttributeEvent;
 import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.Partition;
+import com.hazelcast.core.PartitionService;
 import com.hazelcast.instance.EndpointQualifier;
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
@@ -73,6 +76,12 @@ public class Transport implements InitialMembershipListener {
   /** Registration ID. */
   private String regMembershipListener;
 
+  /**
+   * A partition key whose partition is currently owned by the local member, or null if not yet
+   * computed or invalidated by a membership change.
+   */
+  private volatile Integer localPartitionKey;
+
   /**
    * Initializes the {@link HazelcastInstance} for this global runtime instance.
    *
@@ -111,7 +120,11 @@ public class Transport implements InitialMembershipListener {
     config.addMapConfig(
         new MapConfig(APGAS_FINISH)
             .setInMemoryFormat(InMemoryFormat.OBJECT)
-            .setBackupCount(backupCount));
+            .setBackupCount(backupCount)
+            .addMapIndexConfig(new MapIndexConfig(ResilientFinishState.PLACES_ATTRIBUTE, false))
+            .addMapIndexConfig(new MapIndexConfig(ResilientFinishState.HOME_ATTRIBUTE, false))
+            .addMapIndexConfig(
+                new MapIndexConfig(ResilientFinishState.COMPLETION_TIME_ATTRIBUTE, true)));
 
     // join config
     final JoinConfig join = config.getNetworkConfig().getJoin();
@@ -170,6 +183,26 @@ public class Transport implements InitialMembershipListener {
     return hazelcast.getMap(name);
   }
 
+  /**
+   * Returns the number of places running on the host of the current place, including it.
+   *
+   * @return the number of places sharing the host
+   */
+  int colocatedPlaces() {
+    final Member local = me;
+    if (local == null) {
+      return 1;
+    }
+    final String host = local.getAddress().getHost();
+    int count = 0;
+    for (final Member member : hazelcast.getCluster().getMembers()) {
+      if (host.equals(member.getAddress().getHost())) {
+        count++;
+      }
+    }
+    return Math.max(count, 1);
+  }
+
   /**
    * Provides a map from integers to member objects
    *
@@ -190,6 +223,44 @@ public class Transport implements InitialMembershipListener {
     return hazelcast.getMap(APGAS_FINISH);
   }
 
+  /**
+   * Returns a partition key whose partition is owned by the local member.
+   *
+   * <p>Keys of the resilient finish map carry this partition key so that the primary copy of the
+   * finish state lives on the place that created the finish. Backups are placed on other members
+   * by Hazelcast. The key is recomputed lazily after membership changes since partitions may have
+   * migrated. If no suitable key can be found, the place ID is returned, which preserves
+   * correctness but not locality.
+   *
+   * @return a partition key
+   */
+  int getLocalPartitionKey() {
+    Integer key = localPartitionKey;
+    if (key == null) {
+      key = findLocalPartitionKey();
+      localPartitionKey = key;
+    }
+    return key;
+  }
+
+  /**
+   * Searches for an integer partition key whose partition is owned by the local member.
+   *
+   * @return a partition key
+   */
+  private int findLocalPartitionKey() {
+    final PartitionService partitionService = hazelcast.getPartitionService();
+    final int attempts = 16 * partitionService.getPartitions().size();
+    for (int i = 0; i < attempts; i++) {
+      final int key = here + i * Math.max(maxPlace, 1);
+      final Partition partition = partitionService.getPartition(key);
+      if (me.equals(partition.getOwner())) {
+        return key;
+      }
+    }
+    return here;
+  }
+
   /**
    * Returns the current place ID.
    *
@@ -215,6 +286,7 @@ public class Transport implements InitialMembershipListener {
 
   @Override
   public synchronized void memberAdded(MembershipEvent membershipEvent) {
+    localPartitionKey = null;
     addPlace(membershipEvent.getMember());
   }
 
@@ -225,6 +297,7 @@ public class Transport implements InitialMembershipListener {
 
   @Override
   public synchronized void memberRemoved(MembershipEvent membershipEvent) {
+    localPartitionKey = null;
     this.removePlace(membershipEvent.getMember());
   }
 
@@ -14,6 +14,7 @@ package apgas.impl;
 import apgas.SerializableJob;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.concurrent.RecursiveAction;
 
 /**
@@ -29,6 +30,9 @@ final class UncountedTask extends RecursiveAction implements SerializableRunnabl
   /** The function to run. */
   private SerializableJob f;
 
+  /** The serialized function to run if its deserialization is deferred or null. */
+  private byte[] body;
+
   /**
    * Constructs a new {@link UncountedTask}.
    *
@@ -41,8 +45,11 @@ final class UncountedTask extends RecursiveAction implements SerializableRunnabl
   @Override
   protected void compute() {
     try {
-      final Worker worker = (Worker) Thread.currentThread();
-      worker.task = null;
+      Task.setCurrent(null);
+      if (body != null) {
+        f = (SerializableJob) Task.deserialize(body);
+        body = null;
+      }
       f.run();
     } catch (final Throwable t) {
       System.err.println("[APGAS] Uncaught exception in uncounted task");
@@ -62,8 +69,13 @@ final class UncountedTask extends RecursiveAction implements SerializableRunnabl
    * @throws ClassNotFoundException if the class of the serialized object cannot be found
    */
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    GlobalRuntimeImpl.getRuntime().loads.read(in);
     try {
-      f = (SerializableJob) in.readObject();
+      if (in.readBoolean()) {
+        body = (byte[]) in.readObject();
+      } else {
+        f = (SerializableJob) in.readObject();
+      }
     } catch (final Throwable e) {
       System.err.println(
           "[APGAS] Ignoring failure to receive an uncounted task at place "
@@ -74,10 +86,21 @@ final class UncountedTask extends RecursiveAction implements SerializableRunnabl
     }
   }
 
-  /** Submits the task for asynchronous execution. */
+  /**
+   * Serializes the task.
+   *
+   * @param out the object output stream
+   * @throws IOException if I/O errors occur
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    GlobalRuntimeImpl.getRuntime().loads.write(out);
+    Task.writeBody(out, f);
+  }
+
+  /** Submits the task received from another place for asynchronous execution. */
   @Override
   public void run() {
-    GlobalRuntimeImpl.getRuntime().execute(this);
+    GlobalRuntimeImpl.getRuntime().receive(this);
   }
 
   /**
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@link VirtualThreads} class gives access to virtual threads.
+ *
+ * <p>This version is used on Java releases without virtual threads. The multi-release jar contains
+ * a Java 21 version of this class (see {@code src/main/java21}).
+ */
+final class VirtualThreads {
+
+  /** Prevents instantiation. */
+  private VirtualThreads() {}
+
+  /**
+   * Returns true if this JVM supports virtual threads.
+   *
+   * @return false
+   */
+  static boolean isSupported() {
+    return false;
+  }
+
+  /**
+   * Returns true if the given thread is a virtual thread.
+   *
+   * @param thread a thread
+   * @return false
+   */
+  static boolean isVirtual(Thread thread) {
+    return false;
+  }
+
+  /**
+   * Returns an executor starting a new virtual thread for each task.
+   *
+   * <p>Not called, since {@link #isSupported()} returns false on this release. Returns an executor
+   * running each task on a platform thread, which the runtime would treat like any thread that is
+   * not a worker of its pool.
+   *
+   * @return the executor
+   */
+  static ExecutorService newExecutor() {
+    return Executors.newCachedThreadPool();
+  }
+}
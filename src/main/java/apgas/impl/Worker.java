@@ -22,6 +22,9 @@ public final class Worker extends ForkJoinWorkerThread {
   /** The current task. */
   Task task;
 
+  /** The number of finish blocks this worker is waiting for while running other tasks. */
+  int depth;
+
   /**
    * Instantiates a Worker operating in the given pool.
    *
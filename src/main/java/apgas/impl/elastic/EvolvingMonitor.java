@@ -140,14 +140,12 @@ public class EvolvingMonitor implements Serializable {
       this.load = load;
     }
     // start obtaining the load on all places
-    for (final Place place : places()) {
-      GlobalRuntimeImpl.getRuntime()
-          .immediateAsyncAt(
-              place,
-              () -> {
-                GlobalRuntimeImpl.getRuntime().EVOLVING.startObtainPlaceLoad(load);
-              });
-    }
+    GlobalRuntimeImpl.getRuntime()
+        .immediateAsyncAtAll(
+            places(),
+            () -> {
+              GlobalRuntimeImpl.getRuntime().EVOLVING.startObtainPlaceLoad(load);
+            });
     ConsolePrinter.getInstance()
         .printlnAlways(
             "[Evolving] Thresholds: high load above "
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAtAll;
+import static apgas.Constructs.async;
+import static apgas.Constructs.at;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+
+import apgas.Constructs;
+import apgas.Place;
+import apgas.SerializableLongConsumer;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The {@link AbstractDistArray} class implements the distribution logic shared by the distributed
+ * arrays.
+ *
+ * <p>Each place of the {@link Distribution} holds the elements it owns in a local array of type
+ * {@code A}. Range accesses are split into one message per owner.
+ *
+ * @param <A> the type of the local arrays
+ */
+abstract class AbstractDistArray<A extends Serializable> extends PlaceLocalObject {
+
+  /** The distribution of the array. */
+  final Distribution dist;
+
+  /** The position of the current place in the distribution. */
+  final int rank;
+
+  /** The number of elements held by the current place. */
+  final int localLength;
+
+  /**
+   * Initializes the local state of the array at the current place.
+   *
+   * @param dist the distribution of the array
+   */
+  AbstractDistArray(Distribution dist) {
+    this.dist = dist;
+    rank = dist.rankOf(here().id);
+    localLength = rank < 0 ? 0 : (int) dist.localLength(rank);
+  }
+
+  /**
+   * Returns the local array of the current place.
+   *
+   * @return the local array
+   */
+  abstract A local();
+
+  /**
+   * Allocates an array of type {@code A}.
+   *
+   * @param n the length of the array
+   * @return the new array
+   */
+  abstract A newArray(int n);
+
+  /**
+   * Returns the distribution of this array.
+   *
+   * @return the distribution
+   */
+  public Distribution distribution() {
+    return dist;
+  }
+
+  /**
+   * Returns the number of elements of this array.
+   *
+   * @return the length of the array
+   */
+  public long length() {
+    return dist.length();
+  }
+
+  /**
+   * Returns the place holding the element at the given index.
+   *
+   * @param index an index
+   * @return the owner of the element
+   */
+  public Place owner(long index) {
+    return dist.owner(index);
+  }
+
+  /**
+   * Returns true if the element at the given index is held by the current place.
+   *
+   * @param index an index
+   * @return true if the element is local
+   */
+  public boolean isLocal(long index) {
+    return dist.rank(index) == rank;
+  }
+
+  /**
+   * Returns the number of elements held by the current place.
+   *
+   * @return the local length
+   */
+  public int localLength() {
+    return localLength;
+  }
+
+  /**
+   * Returns the index in this array of an element held by the current place.
+   *
+   * @param localIndex an index into the local array
+   * @return the global index
+   */
+  public long globalIndex(int localIndex) {
+    if (localIndex < 0 || localIndex >= localLength) {
+      throw new IndexOutOfBoundsException("local index " + localIndex + " out of range");
+    }
+    return dist.globalIndex(rank, localIndex);
+  }
+
+  /**
+   * Runs {@code body} for each index of this array at the place holding the element at that index
+   * and waits for all the iterations to complete.
+   *
+   * <p>The indices held by each place are processed in parallel as in {@link
+   * Constructs#forEach(long, long, SerializableLongConsumer)}.
+   *
+   * @param body the function to run for each index
+   */
+  public void forEach(SerializableLongConsumer body) {
+    final AbstractDistArray<A> that = this;
+    finish(
+        () ->
+            asyncAtAll(
+                dist.places(),
+                () ->
+                    Constructs.forEach(
+                        0, that.localLength, j -> body.accept(that.globalIndex((int) j)))));
+  }
+
+  /**
+   * Reads the elements at the indices {@code [from, to)}, sending one message per remote owner.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the elements
+   */
+  A getRange(long from, long to) {
+    final A result = newArray(checkRange(from, to));
+    final Segments[] segments = segments(from, to);
+    final AbstractDistArray<A> that = this;
+    finish(
+        () -> {
+          for (int r = 0; r < segments.length; r++) {
+            final Segments s = segments[r];
+            if (s == null) {
+              continue;
+            }
+            if (r == rank) {
+              s.unpack(gather(s.locals, s.lengths), result);
+            } else {
+              final int[] locals = s.locals;
+              final int[] lengths = s.lengths;
+              final Place owner = new Place(dist.id(r));
+              async(() -> s.unpack(at(owner, () -> that.gather(locals, lengths)), result));
+            }
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Writes the elements at the indices {@code [from, from + n)}, where {@code n} is the length of
+   * {@code values}, sending one message per remote owner.
+   *
+   * @param from the first index
+   * @param values the elements
+   * @param n the number of elements
+   */
+  void putRange(long from, A values, int n) {
+    checkRange(from, from + n);
+    final Segments[] segments = segments(from, from + n);
+    final AbstractDistArray<A> that = this;
+    finish(
+        () -> {
+          for (int r = 0; r < segments.length; r++) {
+            final Segments s = segments[r];
+            if (s == null) {
+              continue;
+            }
+            final int[] locals = s.locals;
+            final int[] lengths = s.lengths;
+            final A chunk = newArray(s.total());
+            s.pack(values, chunk);
+            if (r == rank) {
+              scatter(locals, lengths, chunk);
+            } else {
+              Constructs.asyncAt(new Place(dist.id(r)), () -> that.scatter(locals, lengths, chunk));
+            }
+          }
+        });
+  }
+
+  /**
+   * Copies segments of the local array into a new array.
+   *
+   * @param locals the first local index of each segment
+   * @param lengths the length of each segment
+   * @return the concatenated segments
+   */
+  private A gather(int[] locals, int[] lengths) {
+    final A chunk = newArray(Arrays.stream(lengths).sum());
+    int pos = 0;
+    for (int i = 0; i < locals.length; i++) {
+      System.arraycopy(local(), locals[i], chunk, pos, lengths[i]);
+      pos += lengths[i];
+    }
+    return chunk;
+  }
+
+  /**
+   * Copies the concatenated segments of an array into the local array.
+   *
+   * @param locals the first local index of each segment
+   * @param lengths the length of each segment
+   * @param chunk the concatenated segments
+   */
+  private void scatter(int[] locals, int[] lengths, A chunk) {
+    int pos = 0;
+    for (int i = 0; i < locals.length; i++) {
+      System.arraycopy(chunk, pos, local(), locals[i], lengths[i]);
+      pos += lengths[i];
+    }
+  }
+
+  /**
+   * Checks that a range of indices is within bounds.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the length of the range
+   */
+  private int checkRange(long from, long to) {
+    if (from < 0 || to > dist.length() || from > to || to - from > Integer.MAX_VALUE) {
+      throw new IndexOutOfBoundsException(
+          "range [" + from + ", " + to + ") out of range [0, " + dist.length() + ")");
+    }
+    return (int) (to - from);
+  }
+
+  /**
+   * Splits a range of indices into contiguous segments of the local arrays of their owners.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the segments of each owner indexed by rank, null for places holding none
+   */
+  private Segments[] segments(long from, long to) {
+    final Segments[] segments = new Segments[dist.size()];
+    final long blockSize = dist.blockSize();
+    long i = from;
+    while (i < to) {
+      final int r = dist.rank(i);
+      final long end = Math.min(to, (i / blockSize + 1) * blockSize);
+      if (segments[r] == null) {
+        segments[r] = new Segments();
+      }
+      segments[r].add((int) (i - from), dist.localIndex(i), (int) (end - i));
+      i = end;
+    }
+    for (final Segments s : segments) {
+      if (s != null) {
+        s.trim();
+      }
+    }
+    return segments;
+  }
+
+  /** The segments of a range of indices held by one place. */
+  private static final class Segments {
+
+    /** The position of each segment in the range. */
+    int[] offsets = new int[4];
+
+    /** The first local index of each segment. */
+    int[] locals = new int[4];
+
+    /** The length of each segment. */
+    int[] lengths = new int[4];
+
+    /** The number of segments. */
+    int count;
+
+    /**
+     * Appends a segment, merging it with the previous segment if contiguous.
+     *
+     * @param offset the position of the segment in the range
+     * @param local the first local index of the segment
+     * @param length the length of the segment
+     */
+    void add(int offset, int local, int length) {
+      if (count > 0
+          && offsets[count - 1] + lengths[count - 1] == offset
+          && locals[count - 1] + lengths[count - 1] == local) {
+        lengths[count - 1] += length;
+        return;
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, 2 * count);
+        locals = Arrays.copyOf(locals, 2 * count);
+        lengths = Arrays.copyOf(lengths, 2 * count);
+      }
+      offsets[count] = offset;
+      locals[count] = local;
+      lengths[count] = length;
+      count++;
+    }
+
+    /** Shrinks the arrays to the number of segments. */
+    void trim() {
+      offsets = Arrays.copyOf(offsets, count);
+      locals = Arrays.copyOf(locals, count);
+      lengths = Arrays.copyOf(lengths, count);
+    }
+
+    /**
+     * Returns the number of indices in the segments.
+     *
+     * @return the total length of the segments
+     */
+    int total() {
+      return Arrays.stream(lengths).sum();
+    }
+
+    /**
+     * Concatenates the segments of an array holding the whole range.
+     *
+     * @param values the elements of the range
+     * @param chunk the array receiving the concatenated segments
+     */
+    void pack(Object values, Object chunk) {
+      int pos = 0;
+      for (int i = 0; i < count; i++) {
+        System.arraycopy(values, offsets[i], chunk, pos, lengths[i]);
+        pos += lengths[i];
+      }
+    }
+
+    /**
+     * Copies concatenated segments to their positions in an array holding the whole range.
+     *
+     * @param chunk the concatenated segments
+     * @param values the elements of the range
+     */
+    void unpack(Object chunk, Object values) {
+      int pos = 0;
+      for (int i = 0; i < count; i++) {
+        System.arraycopy(chunk, pos, values, offsets[i], lengths[i]);
+        pos += lengths[i];
+      }
+    }
+  }
+}
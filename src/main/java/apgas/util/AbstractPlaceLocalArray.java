@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.at;
+import static apgas.Constructs.here;
+import static apgas.Constructs.inlineAsyncAt;
+
+import apgas.Place;
+import apgas.impl.SerializableRunnable;
+import java.io.Serializable;
+
+/**
+ * The {@link AbstractPlaceLocalArray} class implements the remote accesses shared by the
+ * place-local arrays of primitive values.
+ *
+ * <p>Each place holds a local array of type {@code A}. The atomic operations may target the local
+ * array of any place and are executed at that place. The additions of {@code addAt} are batched by
+ * destination place. {@link #getRemote} and {@link #putRemote} access the local array of another
+ * place with one request and one reply.
+ *
+ * @param <A> the type of the local arrays
+ */
+abstract class AbstractPlaceLocalArray<A extends Serializable> extends PlaceLocalObject {
+
+  /** The pending additions to the local arrays of other places. */
+  final RemoteAdds<A> adds;
+
+  /**
+   * Initializes the local state of the array at the current place.
+   *
+   * @param deltas the storage of the values added to the local arrays of other places
+   */
+  AbstractPlaceLocalArray(RemoteAdds.Deltas<A> deltas) {
+    adds = new RemoteAdds<>(deltas, this::sendAdds);
+  }
+
+  /**
+   * Returns the local array of the current place.
+   *
+   * @return the local array
+   */
+  abstract A local();
+
+  /**
+   * Returns the elements of the local array at the specified indices.
+   *
+   * @param indices indices into the local array
+   * @return the array elements
+   */
+  abstract A get(int[] indices);
+
+  /**
+   * Sets the elements of the local array at the specified indices.
+   *
+   * @param indices indices into the local array
+   * @param values the desired values
+   */
+  abstract void put(int[] indices, A values);
+
+  /**
+   * Atomically adds to the elements of the local array at the specified indices.
+   *
+   * @param indices indices into the local array
+   * @param deltas the values to add
+   */
+  abstract void addAll(int[] indices, A deltas);
+
+  /**
+   * Applies an atomic operation to the local array of a place.
+   *
+   * @param <R> the type of the result
+   * @param place the place holding the array
+   * @param op the operation
+   * @return the result of the operation
+   */
+  final <R extends Serializable> R apply(Place place, Operation<A, R> op) {
+    if (place.id == here().id) {
+      return op.apply(local());
+    }
+    final AbstractPlaceLocalArray<A> that = this;
+    return at(place, () -> op.apply(that.local()));
+  }
+
+  /**
+   * Returns the array elements at the specified indices of the local array of a place.
+   *
+   * <p>The request and the reply are predefined messages answered by the thread receiving them at
+   * the destination, so that no user task is serialized or spawned.
+   *
+   * @param place the place holding the elements
+   * @param indices indices into the local array of the place
+   * @return the array elements
+   */
+  @SuppressWarnings("unchecked")
+  public A getRemote(Place place, int[] indices) {
+    if (place.id == here().id) {
+      return get(indices);
+    }
+    final RemoteReply reply = new RemoteReply(place);
+    inlineAsyncAt(place, new Get(this, indices, reply.gid()));
+    return (A) reply.await();
+  }
+
+  /**
+   * Sets the array elements at the specified indices of the local array of a place.
+   *
+   * <p>The request and the acknowledgement are predefined messages answered by the thread receiving
+   * them at the destination, so that no user task is serialized or spawned. The elements are set
+   * when this method returns.
+   *
+   * @param place the place holding the elements
+   * @param indices indices into the local array of the place
+   * @param values the desired values
+   */
+  public void putRemote(Place place, int[] indices, A values) {
+    if (place.id == here().id) {
+      put(indices, values);
+      return;
+    }
+    final RemoteReply reply = new RemoteReply(place);
+    inlineAsyncAt(place, new Put<>(this, indices, values, reply.gid()));
+    reply.await();
+  }
+
+  private void sendAdds(Place place, int[] indices, A deltas) {
+    final AbstractPlaceLocalArray<A> that = this;
+    asyncAt(place, () -> that.addAll(indices, deltas));
+  }
+
+  /**
+   * An atomic operation on a local array.
+   *
+   * @param <A> the type of the local array
+   * @param <R> the type of the result
+   */
+  @FunctionalInterface
+  interface Operation<A, R> extends Serializable {
+
+    /**
+     * Applies the operation.
+     *
+     * @param array the local array
+     * @return the result
+     */
+    R apply(A array);
+  }
+
+  /** The request of {@link #getRemote}. */
+  private static final class Get implements SerializableRunnable {
+
+    private static final long serialVersionUID = -4021597143871156702L;
+
+    private final AbstractPlaceLocalArray<?> array;
+
+    private final int[] indices;
+
+    /** The ID of the pending reply. */
+    private final long reply;
+
+    private Get(AbstractPlaceLocalArray<?> array, int[] indices, long reply) {
+      this.array = array;
+      this.indices = indices;
+      this.reply = reply;
+    }
+
+    @Override
+    public void run() {
+      Object values;
+      try {
+        values = array.get(indices);
+      } catch (final RuntimeException e) {
+        values = e;
+      }
+      RemoteReply.reply(reply, values);
+    }
+  }
+
+  /** The request of {@link #putRemote}. */
+  private static final class Put<A extends Serializable> implements SerializableRunnable {
+
+    private static final long serialVersionUID = 2817360493158803317L;
+
+    private final AbstractPlaceLocalArray<A> array;
+
+    private final int[] indices;
+
+    private final A values;
+
+    /** The ID of the pending reply. */
+    private final long reply;
+
+    private Put(AbstractPlaceLocalArray<A> array, int[] indices, A values, long reply) {
+      this.array = array;
+      this.indices = indices;
+      this.values = values;
+      this.reply = reply;
+    }
+
+    @Override
+    public void run() {
+      Object ack = null;
+      try {
+        array.put(indices, values);
+      } catch (final RuntimeException e) {
+        ack = e;
+      }
+      RemoteReply.reply(reply, ack);
+    }
+  }
+}
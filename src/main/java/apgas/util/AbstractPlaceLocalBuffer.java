@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.asyncAtAll;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+
+import apgas.Place;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link AbstractPlaceLocalBuffer} class implements the storage shared by the off-heap
+ * place-local arrays.
+ *
+ * <p>The local array of each place is stored in direct byte buffers of at most {@link #CHUNK}
+ * elements of {@link #BYTES} bytes each, so that the local array may exceed 2 GB and does not
+ * burden the garbage collector. {@link #drop()} drops the references to the buffers, whose memory
+ * is reclaimed by the garbage collector once the views handed out by pending operations are gone,
+ * not when {@code drop} returns. The memory is not released explicitly, since a thread still
+ * accessing a buffer released underneath it would crash the JVM. Accessing the array after it has
+ * been dropped throws an {@link IllegalStateException}.
+ *
+ * <p>Transfers between places copy raw bytes, without per-element serialization.
+ */
+abstract class AbstractPlaceLocalBuffer extends PlaceLocalObject {
+
+  /** The size of an element in bytes. */
+  static final int BYTES = 8;
+
+  /** The number of bits of the index of an element in its chunk. */
+  static final int SHIFT = 27;
+
+  /** The number of elements per chunk. */
+  static final int CHUNK = 1 << SHIFT;
+
+  /** The IDs of the places holding a local array. */
+  private final int[] ids;
+
+  /** The length of the local array. */
+  final long length;
+
+  /** The chunks of the local array or null once dropped. */
+  private volatile ByteBuffer[] chunks;
+
+  /**
+   * Allocates the local array.
+   *
+   * @param ids the IDs of the places holding a local array
+   * @param length the length of the local array
+   */
+  AbstractPlaceLocalBuffer(int[] ids, long length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("negative length " + length);
+    }
+    this.ids = ids;
+    this.length = length;
+    final ByteBuffer[] chunks = new ByteBuffer[(int) ((length + CHUNK - 1) >>> SHIFT)];
+    for (int i = 0; i < chunks.length; i++) {
+      final long n = Math.min(CHUNK, length - ((long) i << SHIFT));
+      chunks[i] = ByteBuffer.allocateDirect((int) n * BYTES).order(ByteOrder.nativeOrder());
+    }
+    this.chunks = chunks;
+  }
+
+  /**
+   * Returns the IDs of the given places.
+   *
+   * @param places a collection of places with no repetition
+   * @return the place IDs
+   */
+  static int[] ids(Iterable<? extends Place> places) {
+    final List<Integer> list = new ArrayList<>();
+    for (final Place p : places) {
+      list.add(p.id);
+    }
+    return list.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Returns the length of the local array.
+   *
+   * @return the number of elements held by each place
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Copies {@code n} elements of the local array starting at {@code from} to the local array of
+   * {@code place} starting at {@code to}.
+   *
+   * <p>The elements are sent as a single byte array. The copy is asynchronous and is tracked by
+   * the enclosing finish.
+   *
+   * @param from the first index in the local array
+   * @param place the destination place
+   * @param to the first index in the local array of the destination
+   * @param n the number of elements
+   */
+  public void copyTo(long from, Place place, long to, int n) {
+    final byte[] bytes = readBytes(from, n);
+    final AbstractPlaceLocalBuffer that = this;
+    asyncAt(place, () -> that.writeBytes(to, bytes));
+  }
+
+  /**
+   * Drops the references to the local arrays of all the places.
+   *
+   * <p>Must be called from the place where the array was created. Accesses starting after this
+   * call returns throw an {@link IllegalStateException}. The off-heap memory is reclaimed by the
+   * garbage collector, like the memory of any direct buffer.
+   *
+   * @throws BadPlaceException if not invoked from the home place of the array
+   */
+  public void drop() {
+    if (!id.home.equals(here())) {
+      throw new BadPlaceException();
+    }
+    final List<Place> places = new ArrayList<>(ids.length);
+    for (final int id : ids) {
+      places.add(new Place(id));
+    }
+    final AbstractPlaceLocalBuffer that = this;
+    finish(
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  that.id.removeHere();
+                  that.chunks = null;
+                }));
+  }
+
+  /**
+   * Checks that a range of indices is within bounds.
+   *
+   * @param from the first index
+   * @param n the number of elements
+   */
+  final void checkRange(long from, int n) {
+    if (from < 0 || n < 0 || from > length - n) {
+      throw new IndexOutOfBoundsException(
+          "range [" + from + ", " + (from + n) + ") out of range [0, " + length + ")");
+    }
+  }
+
+  /**
+   * Returns the position of an element in its chunk.
+   *
+   * @param index an index into the local array
+   * @return the byte offset of the element in its chunk
+   */
+  static int offset(long index) {
+    return (int) (index & (CHUNK - 1)) * BYTES;
+  }
+
+  /**
+   * Returns the chunk holding an element.
+   *
+   * @param index an index into the local array
+   * @return the chunk
+   * @throws IllegalStateException if the array has been dropped
+   */
+  final ByteBuffer chunk(long index) {
+    final ByteBuffer[] chunks = this.chunks;
+    if (chunks == null) {
+      throw new IllegalStateException("place local array has been dropped");
+    }
+    return chunks[(int) (index >>> SHIFT)];
+  }
+
+  /**
+   * Returns a view of the longest prefix of a range of elements contained in a single chunk.
+   *
+   * @param from the first index
+   * @param n the number of elements in the range
+   * @return a byte buffer in native order starting at element {@code from}
+   */
+  final ByteBuffer slice(long from, int n) {
+    final ByteBuffer buffer = chunk(from).duplicate();
+    buffer.position(offset(from));
+    buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + (long) n * BYTES));
+    return buffer.slice().order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Copies elements of the local array into a byte array.
+   *
+   * @param from the first index
+   * @param n the number of elements
+   * @return the bytes of the elements
+   */
+  final byte[] readBytes(long from, int n) {
+    checkRange(from, n);
+    final byte[] bytes = new byte[Math.multiplyExact(n, BYTES)];
+    for (int pos = 0; pos < bytes.length; ) {
+      final ByteBuffer buffer = slice(from + pos / BYTES, (bytes.length - pos) / BYTES);
+      final int count = buffer.remaining();
+      buffer.get(bytes, pos, count);
+      pos += count;
+    }
+    return bytes;
+  }
+
+  /**
+   * Copies a byte array into elements of the local array.
+   *
+   * @param from the first index
+   * @param bytes the bytes of the elements
+   */
+  final void writeBytes(long from, byte[] bytes) {
+    checkRange(from, bytes.length / BYTES);
+    for (int pos = 0; pos < bytes.length; ) {
+      final ByteBuffer buffer = slice(from + pos / BYTES, (bytes.length - pos) / BYTES);
+      final int count = buffer.remaining();
+      buffer.put(bytes, pos, count);
+      pos += count;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.asyncAtAll;
+import static apgas.Constructs.at;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+import static apgas.Constructs.isDead;
+
+import apgas.Place;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A {@link Broadcast} is a handle to a read-only value copied at most once to each place.
+ *
+ * <p>A handle serializes as the globally unique ID of the value only, so that tasks capturing the
+ * handle instead of the value do not carry the value. The value is stored in the {@link GlobalID}
+ * registry of each place. It is either pushed to a collection of places at construction along a
+ * spanning tree, or pulled from the home place on first access at a place. Copies are wrapped so
+ * that a null value is not mistaken for a missing copy.
+ *
+ * @param <T> the type of the value
+ */
+public final class Broadcast<T extends Serializable> implements Serializable {
+
+  private static final long serialVersionUID = 1873024669135927745L;
+
+  /**
+   * The registry entry left by {@link #free()} at a place whose copy is still in transit, so that
+   * the pulling task drops the copy instead of storing it.
+   */
+  private static final Object FREED = new Object();
+
+  /** The globally unique ID of the value. */
+  private final long gid;
+
+  private Broadcast(long gid) {
+    this.gid = gid;
+  }
+
+  /**
+   * Constructs a handle to the given value, pulled by each place on first access.
+   *
+   * @param <T> the type of the value
+   * @param value the value
+   * @return the handle
+   */
+  public static <T extends Serializable> Broadcast<T> of(T value) {
+    final long gid = GlobalID.newGid();
+    GlobalID.putHere(gid, new Source<>(value));
+    return new Broadcast<>(gid);
+  }
+
+  /**
+   * Constructs a handle to the given value and copies the value to the given places.
+   *
+   * <p>The value is sent along a spanning tree of the places, so that the current place sends O(1)
+   * copies. Other places pull the value on first access.
+   *
+   * @param <T> the type of the value
+   * @param places a collection of places with no repetition
+   * @param value the value
+   * @return the handle
+   */
+  public static <T extends Serializable> Broadcast<T> make(
+      Collection<? extends Place> places, T value) {
+    final Broadcast<T> broadcast = of(value);
+    final int home = here().id;
+    final long gid = broadcast.gid;
+    final Source<T> source = broadcast.source();
+    synchronized (source) {
+      for (final Place p : places) {
+        source.holders.add(p.id);
+      }
+    }
+    finish(
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  if (here().id != home) {
+                    GlobalID.putHereIfAbsent(gid, new Copy<>(value));
+                  }
+                }));
+    return broadcast;
+  }
+
+  /**
+   * Returns the home {@link Place} of the value.
+   *
+   * @return a place
+   */
+  public Place home() {
+    return new Place(GlobalID.home(gid));
+  }
+
+  /**
+   * Returns the value, pulling it from the home place if not available here yet.
+   *
+   * @return the value
+   * @throws BadPlaceException if the handle was freed
+   */
+  @SuppressWarnings("unchecked")
+  public T value() {
+    final Object local = GlobalID.getHere(gid);
+    if (local instanceof Source) {
+      return ((Source<T>) local).value;
+    }
+    if (local instanceof Copy) {
+      return ((Copy<T>) local).value;
+    }
+    if (local != null || GlobalID.home(gid) == here().id) {
+      throw new BadPlaceException();
+    }
+    final int place = here().id;
+    final long gid = this.gid;
+    final Copy<T> copy = at(home(), () -> pull(gid, place));
+    if (copy == null) {
+      throw new BadPlaceException();
+    }
+    final Object previous = GlobalID.putHereIfAbsent(gid, copy);
+    if (previous == null) {
+      return copy.value;
+    }
+    if (previous == FREED) {
+      // freed while the copy was in transit
+      GlobalID.removeHere(gid, FREED);
+      throw new BadPlaceException();
+    }
+    return ((Copy<T>) previous).value;
+  }
+
+  /**
+   * Records a new copy of a value at its home place.
+   *
+   * @param <T> the type of the value
+   * @param gid the globally unique ID of the value
+   * @param place the ID of the place requesting the value
+   * @return the copy or null if the handle was freed
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends Serializable> Copy<T> pull(long gid, int place) {
+    final Object source = GlobalID.getHere(gid);
+    return source instanceof Source ? ((Source<T>) source).pull(place) : null;
+  }
+
+  /**
+   * Removes the copies of the value from all the places.
+   *
+   * <p>Must be called from the home place. The handle must no longer be used after this call.
+   * Copies pulled concurrently are removed as well.
+   *
+   * @throws BadPlaceException if not invoked from the home place of the value
+   */
+  public void free() {
+    if (GlobalID.home(gid) != here().id) {
+      throw new BadPlaceException();
+    }
+    final Source<T> source = source();
+    final Set<Integer> holders;
+    synchronized (source) {
+      // no copy is handed out past this point
+      source.freed = true;
+      holders = new HashSet<>(source.holders);
+    }
+    final long gid = this.gid;
+    finish(
+        () -> {
+          for (final int id : holders) {
+            final Place p = new Place(id);
+            if (id != here().id && !isDead(p)) {
+              asyncAt(
+                  p,
+                  () -> {
+                    if (GlobalID.putHereIfAbsent(gid, FREED) != null) {
+                      GlobalID.removeHere(gid);
+                    }
+                  });
+            }
+          }
+        });
+    GlobalID.removeHere(gid);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Source<T> source() {
+    final Object source = GlobalID.getHere(gid);
+    if (!(source instanceof Source)) {
+      throw new BadPlaceException();
+    }
+    return (Source<T>) source;
+  }
+
+  @SuppressWarnings("rawtypes")
+  @Override
+  public boolean equals(Object that) {
+    return that instanceof Broadcast && gid == ((Broadcast) that).gid;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(gid);
+  }
+
+  @Override
+  public String toString() {
+    return "broadcast(" + gid + ")";
+  }
+
+  /**
+   * The value of a handle at its home place.
+   *
+   * @param <T> the type of the value
+   */
+  private static final class Source<T> {
+
+    /** The value. */
+    private final T value;
+
+    /** The IDs of the places holding a copy. */
+    private final Set<Integer> holders = new HashSet<>();
+
+    /** Whether the handle was freed. */
+    private boolean freed;
+
+    private Source(T value) {
+      this.value = value;
+    }
+
+    /**
+     * Records a new copy of the value.
+     *
+     * @param place the ID of the place requesting the value
+     * @return the copy or null if the handle was freed
+     */
+    private synchronized Copy<T> pull(int place) {
+      if (freed) {
+        return null;
+      }
+      holders.add(place);
+      return new Copy<>(value);
+    }
+  }
+
+  /**
+   * A copy of the value at a place other than its home place.
+   *
+   * @param <T> the type of the value
+   */
+  private static final class Copy<T> implements Serializable {
+
+    private static final long serialVersionUID = -2702404460950358217L;
+
+    /** The value. */
+    private final T value;
+
+    private Copy(T value) {
+      this.value = value;
+    }
+  }
+}
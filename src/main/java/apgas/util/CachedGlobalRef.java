@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.at;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+import static apgas.Constructs.isDead;
+
+import apgas.Place;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A {@link CachedGlobalRef} is a global reference to a value held by its home place and cached by
+ * the other places on first read.
+ *
+ * <p>Reading the reference at a place other than its home fetches the value from the home place
+ * the first time, then returns the cached copy. Updates are written through to the home place,
+ * which pushes the new value to all the places holding a copy before returning. {@link
+ * #invalidate()} instead drops the copies, so that the next reads fetch the value again, for
+ * instance after the home place mutated the value in place. Each update carries a version number
+ * so that a fetch racing with an update never caches a stale value.
+ *
+ * @param <T> the type of the value
+ */
+public class CachedGlobalRef<T extends Serializable> implements Serializable {
+
+  private static final long serialVersionUID = -6720939367722931785L;
+
+  /** The {@link GlobalID} instance for this {@link CachedGlobalRef} instance. */
+  private final GlobalID id;
+
+  /**
+   * Constructs a {@link CachedGlobalRef} to the given value at the current place.
+   *
+   * @param t the value
+   */
+  public CachedGlobalRef(T t) {
+    id = new GlobalID();
+    id.putHere(new Master<>(t));
+  }
+
+  /**
+   * Returns the home {@link Place} of this {@link CachedGlobalRef} instance.
+   *
+   * @return a place
+   */
+  public Place home() {
+    return id.home;
+  }
+
+  /**
+   * Returns the value of this reference, fetching it from the home place if not cached here.
+   *
+   * @return the value
+   */
+  @SuppressWarnings("unchecked")
+  public T get() {
+    if (id.home.id == here().id) {
+      return master().value;
+    }
+    Copy<T> copy = (Copy<T>) id.getHere();
+    if (copy == null) {
+      final Copy<T> fresh = new Copy<>();
+      copy = (Copy<T>) id.putHereIfAbsent(fresh);
+      if (copy == null) {
+        copy = fresh;
+      }
+    }
+    final Copy<T> current = copy;
+    synchronized (current) {
+      if (current.valid) {
+        return current.value;
+      }
+    }
+    final int place = here().id;
+    final CachedGlobalRef<T> that = this;
+    final Versioned<T> fetched = at(id.home, () -> that.master().fetch(place));
+    current.update(fetched.version, fetched.value, true);
+    return fetched.value;
+  }
+
+  /**
+   * Updates the value of this reference at the home place and at all the places holding a copy.
+   *
+   * @param t the new value
+   */
+  public void set(T t) {
+    if (id.home.id != here().id) {
+      final CachedGlobalRef<T> that = this;
+      at(id.home, () -> that.set(t));
+      return;
+    }
+    final Master<T> master = master();
+    final long version;
+    final Set<Integer> copies;
+    synchronized (master) {
+      master.value = t;
+      version = ++master.version;
+      copies = new HashSet<>(master.copies);
+    }
+    push(copies, version, t, true);
+  }
+
+  /**
+   * Drops the copies of the value held by the places other than the home place.
+   *
+   * <p>The next read at each of these places fetches the current value from the home place.
+   */
+  public void invalidate() {
+    if (id.home.id != here().id) {
+      final CachedGlobalRef<T> that = this;
+      at(id.home, () -> that.invalidate());
+      return;
+    }
+    final Master<T> master = master();
+    final long version;
+    final Set<Integer> copies;
+    synchronized (master) {
+      version = ++master.version;
+      copies = new HashSet<>(master.copies);
+      master.copies.clear();
+    }
+    push(copies, version, null, false);
+  }
+
+  /**
+   * Frees this reference at the home place and at all the places holding a copy.
+   *
+   * @throws BadPlaceException if not invoked from the home place of the reference
+   */
+  public void free() {
+    if (id.home.id != here().id) {
+      throw new BadPlaceException();
+    }
+    final Master<T> master = master();
+    final Set<Integer> copies;
+    synchronized (master) {
+      copies = new HashSet<>(master.copies);
+    }
+    final GlobalID id = this.id;
+    finish(
+        () -> {
+          for (final int p : copies) {
+            final Place place = new Place(p);
+            if (!isDead(place)) {
+              asyncAt(place, () -> id.removeHere());
+            }
+          }
+        });
+    id.removeHere();
+  }
+
+  /**
+   * Sends a new version of the value to the places holding a copy and waits for the copies to be
+   * updated.
+   *
+   * @param copies the IDs of the places holding a copy
+   * @param version the new version
+   * @param t the new value
+   * @param valid false to drop the copies
+   */
+  @SuppressWarnings("unchecked")
+  private void push(Set<Integer> copies, long version, T t, boolean valid) {
+    final GlobalID id = this.id;
+    finish(
+        () -> {
+          for (final int p : copies) {
+            final Place place = new Place(p);
+            if (!isDead(place)) {
+              asyncAt(
+                  place,
+                  () -> {
+                    final Copy<T> copy = (Copy<T>) id.getHere();
+                    if (copy != null) {
+                      copy.update(version, t, valid);
+                    }
+                  });
+            }
+          }
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private Master<T> master() {
+    return (Master<T>) id.getHere();
+  }
+
+  @SuppressWarnings("rawtypes")
+  @Override
+  public boolean equals(Object that) {
+    return that instanceof CachedGlobalRef && id.equals(((CachedGlobalRef) that).id);
+  }
+
+  @Override
+  public int hashCode() {
+    return id.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "cachedRef(" + id.gid() + ")";
+  }
+
+  /**
+   * The value of a reference at its home place.
+   *
+   * @param <T> the type of the value
+   */
+  private static final class Master<T> {
+
+    /** The current value. */
+    private volatile T value;
+
+    /** The version of the value. */
+    private long version;
+
+    /** The IDs of the places holding a copy. */
+    private final Set<Integer> copies = new HashSet<>();
+
+    private Master(T value) {
+      this.value = value;
+    }
+
+    /**
+     * Records a new copy of the value.
+     *
+     * @param place the ID of the place requesting the value
+     * @return the value and its version
+     */
+    private synchronized Versioned<T> fetch(int place) {
+      copies.add(place);
+      return new Versioned<>(version, value);
+    }
+  }
+
+  /**
+   * The copy of the value of a reference at a place other than the home place.
+   *
+   * @param <T> the type of the value
+   */
+  private static final class Copy<T> {
+
+    /** The cached value. */
+    private T value;
+
+    /** The version of the cached value or of the last invalidation. */
+    private long version = -1;
+
+    /** Whether the cached value may be used. */
+    private boolean valid;
+
+    /**
+     * Applies a version unless a newer version was applied already.
+     *
+     * @param version the version
+     * @param value the value of the version
+     * @param valid false to drop the copy
+     */
+    private synchronized void update(long version, T value, boolean valid) {
+      if (version >= this.version) {
+        this.version = version;
+        this.value = valid ? value : null;
+        this.valid = valid;
+      }
+    }
+  }
+
+  /**
+   * A value and its version.
+   *
+   * @param <T> the type of the value
+   */
+  private static final class Versioned<T> implements Serializable {
+
+    private static final long serialVersionUID = 5034291883542163873L;
+
+    private final long version;
+
+    private final T value;
+
+    private Versioned(long version, T value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The {@link ConcurrentLongMap} class implements a concurrent map from {@code long} keys to
+ * non-null objects without boxing the keys.
+ *
+ * <p>The map is split into {@link #STRIPES} open-addressing tables with linear probing. Updates
+ * lock the table of the key. Lookups take no lock: a new entry publishes its value before its key
+ * and a table is replaced as a whole when resized, so that a lookup finding the key in a table
+ * finds its value. Removed entries keep their key with a null value until the next resize.
+ *
+ * <p>The key {@link Long#MIN_VALUE} is reserved.
+ */
+final class ConcurrentLongMap {
+
+  /** The number of tables. */
+  static final int STRIPES = 16;
+
+  /** The key marking empty slots. */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  /** The tables. */
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  /** Constructs an empty map. */
+  ConcurrentLongMap() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  private static int hash(long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private Stripe stripe(int hash) {
+    return stripes[hash >>> 28];
+  }
+
+  /**
+   * Returns the value associated with a key.
+   *
+   * @param key a key
+   * @return the value or null if none
+   */
+  Object get(long key) {
+    final int hash = hash(key);
+    final Table table = stripe(hash).table;
+    final int mask = table.keys.length - 1;
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      final long k = (long) KEYS.getAcquire(table.keys, i);
+      if (k == key) {
+        return VALUES.getAcquire(table.values, i);
+      }
+      if (k == EMPTY) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Associates a value with a key.
+   *
+   * @param key a key
+   * @param value a non-null value
+   * @return the previous value or null if none
+   */
+  Object put(long key, Object value) {
+    final int hash = hash(key);
+    final Stripe stripe = stripe(hash);
+    synchronized (stripe) {
+      return stripe.put(key, hash, value, false);
+    }
+  }
+
+  /**
+   * Associates a value with a key if the key has no value.
+   *
+   * @param key a key
+   * @param value a non-null value
+   * @return the current value or null if none
+   */
+  Object putIfAbsent(long key, Object value) {
+    final int hash = hash(key);
+    final Stripe stripe = stripe(hash);
+    synchronized (stripe) {
+      return stripe.put(key, hash, value, true);
+    }
+  }
+
+  /**
+   * Removes the value associated with a key.
+   *
+   * @param key a key
+   * @return the previous value or null if none
+   */
+  Object remove(long key) {
+    final int hash = hash(key);
+    final Stripe stripe = stripe(hash);
+    synchronized (stripe) {
+      return stripe.remove(key, hash, null);
+    }
+  }
+
+  /**
+   * Removes the value associated with a key if it is the given value.
+   *
+   * @param key a key
+   * @param value the expected value
+   * @return true if the value was removed
+   */
+  boolean remove(long key, Object value) {
+    final int hash = hash(key);
+    final Stripe stripe = stripe(hash);
+    synchronized (stripe) {
+      return stripe.remove(key, hash, value) != null;
+    }
+  }
+
+  /**
+   * Returns the number of keys with a value.
+   *
+   * @return the size of the map
+   */
+  int size() {
+    int size = 0;
+    for (final Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size;
+      }
+    }
+    return size;
+  }
+
+  /** The slots of a table. */
+  private static final class Table {
+
+    /** The keys or {@link #EMPTY}. */
+    final long[] keys;
+
+    /** The values or null if removed. */
+    final Object[] values;
+
+    Table(int capacity) {
+      keys = new long[capacity];
+      values = new Object[capacity];
+      Arrays.fill(keys, EMPTY);
+    }
+  }
+
+  /** A table and its counters, guarded by the lock of the stripe. */
+  private static final class Stripe {
+
+    /** The current table. */
+    volatile Table table = new Table(16);
+
+    /** The number of keys with a value. */
+    int size;
+
+    /** The number of slots with a key. */
+    int used;
+
+    Object put(long key, int hash, Object value, boolean onlyIfAbsent) {
+      if (key == EMPTY) {
+        throw new IllegalArgumentException("reserved key " + key);
+      }
+      Table t = table;
+      int mask = t.keys.length - 1;
+      int i = hash & mask;
+      for (long k; (k = t.keys[i]) != EMPTY; i = (i + 1) & mask) {
+        if (k == key) {
+          final Object previous = t.values[i];
+          if (previous == null) {
+            size++;
+          }
+          if (previous == null || !onlyIfAbsent) {
+            VALUES.setRelease(t.values, i, value);
+          }
+          return previous;
+        }
+      }
+      if (4 * (used + 1) > 3 * t.keys.length) {
+        t = resize();
+        mask = t.keys.length - 1;
+        for (i = hash & mask; t.keys[i] != EMPTY; i = (i + 1) & mask) {}
+      }
+      VALUES.setRelease(t.values, i, value);
+      KEYS.setRelease(t.keys, i, key);
+      used++;
+      size++;
+      return null;
+    }
+
+    Object remove(long key, int hash, Object expected) {
+      final Table t = table;
+      final int mask = t.keys.length - 1;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        final long k = t.keys[i];
+        if (k == EMPTY) {
+          return null;
+        }
+        if (k == key) {
+          final Object previous = t.values[i];
+          if (previous == null || (expected != null && previous != expected)) {
+            return null;
+          }
+          VALUES.setRelease(t.values, i, null);
+          size--;
+          return previous;
+        }
+      }
+    }
+
+    /**
+     * Replaces the table with a table holding the keys with a value and room to grow.
+     *
+     * @return the new table
+     */
+    private Table resize() {
+      final Table old = table;
+      int capacity = 16;
+      while (capacity < 4 * (size + 1)) {
+        capacity <<= 1;
+      }
+      final Table t = new Table(capacity);
+      final int mask = capacity - 1;
+      for (int j = 0; j < old.keys.length; j++) {
+        final Object value = old.values[j];
+        if (value != null) {
+          int i = hash(old.keys[j]) & mask;
+          while (t.keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+          }
+          t.keys[i] = old.keys[j];
+          t.values[i] = value;
+        }
+      }
+      used = size;
+      table = t;
+      return t;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.at;
+
+import apgas.Place;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@link DistArray} class implements an array of objects distributed across places according to
+ * a {@link Distribution}.
+ *
+ * <p>Accesses to elements held by the current place are plain array accesses. Accesses to remote
+ * elements block until completed and copy the elements. Use the range accesses to batch remote
+ * accesses per owner.
+ *
+ * @param <T> the type of the elements
+ */
+public final class DistArray<T extends Serializable> extends AbstractDistArray<Object[]> {
+
+  /** The elements held by the current place. */
+  private final Object[] array;
+
+  private DistArray(Distribution dist) {
+    super(dist);
+    array = new Object[localLength];
+  }
+
+  /**
+   * Constructs a distributed array initialized with nulls.
+   *
+   * @param <T> the type of the elements
+   * @param dist the distribution of the array
+   * @return the distributed array
+   */
+  public static <T extends Serializable> DistArray<T> make(Distribution dist) {
+    return PlaceLocalObject.make(dist.places(), () -> new DistArray<>(dist));
+  }
+
+  @Override
+  Object[] local() {
+    return array;
+  }
+
+  @Override
+  Object[] newArray(int n) {
+    return new Object[n];
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * @param index an index
+   * @return the element
+   */
+  @SuppressWarnings("unchecked")
+  public T get(long index) {
+    final int r = dist.rank(index);
+    final int j = dist.localIndex(index);
+    if (r == rank) {
+      return (T) array[j];
+    }
+    final DistArray<T> that = this;
+    return at(new Place(dist.id(r)), () -> (T) that.array[j]);
+  }
+
+  /**
+   * Sets the element at the given index.
+   *
+   * @param index an index
+   * @param value the new value
+   */
+  public void set(long index, T value) {
+    final int r = dist.rank(index);
+    final int j = dist.localIndex(index);
+    if (r == rank) {
+      array[j] = value;
+      return;
+    }
+    final DistArray<T> that = this;
+    at(new Place(dist.id(r)), () -> that.array[j] = value);
+  }
+
+  /**
+   * Returns the elements at the indices {@code [from, to)}.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the elements
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> get(long from, long to) {
+    return (List<T>) (List<?>) Arrays.asList(getRange(from, to));
+  }
+
+  /**
+   * Sets the elements at the indices starting at {@code from}.
+   *
+   * @param from the first index
+   * @param values the new values
+   */
+  public void put(long from, List<? extends T> values) {
+    putRange(from, values.toArray(), values.size());
+  }
+
+  /**
+   * Returns the element at the given index of the local array of the current place.
+   *
+   * @param localIndex an index into the local array
+   * @return the element
+   */
+  @SuppressWarnings("unchecked")
+  public T getLocal(int localIndex) {
+    return (T) array[localIndex];
+  }
+
+  /**
+   * Sets the element at the given index of the local array of the current place.
+   *
+   * @param localIndex an index into the local array
+   * @param value the new value
+   */
+  public void setLocal(int localIndex, T value) {
+    array[localIndex] = value;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.at;
+
+import apgas.Place;
+
+/**
+ * The {@link DistDoubleArray} class implements an array of doubles distributed across places
+ * according to a {@link Distribution}.
+ *
+ * <p>Accesses to elements held by the current place are plain array accesses. Accesses to remote
+ * elements block until completed. Use the range accesses to batch remote accesses per owner.
+ */
+public final class DistDoubleArray extends AbstractDistArray<double[]> {
+
+  /** The elements held by the current place. */
+  private final double[] array;
+
+  private DistDoubleArray(Distribution dist) {
+    super(dist);
+    array = new double[localLength];
+  }
+
+  /**
+   * Constructs a distributed array initialized with zeros.
+   *
+   * @param dist the distribution of the array
+   * @return the distributed array
+   */
+  public static DistDoubleArray make(Distribution dist) {
+    return PlaceLocalObject.make(dist.places(), () -> new DistDoubleArray(dist));
+  }
+
+  @Override
+  double[] local() {
+    return array;
+  }
+
+  @Override
+  double[] newArray(int n) {
+    return new double[n];
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * @param index an index
+   * @return the element
+   */
+  public double get(long index) {
+    final int r = dist.rank(index);
+    final int j = dist.localIndex(index);
+    if (r == rank) {
+      return array[j];
+    }
+    final DistDoubleArray that = this;
+    return at(new Place(dist.id(r)), () -> that.array[j]);
+  }
+
+  /**
+   * Sets the element at the given index.
+   *
+   * @param index an index
+   * @param value the new value
+   */
+  public void set(long index, double value) {
+    final int r = dist.rank(index);
+    final int j = dist.localIndex(index);
+    if (r == rank) {
+      array[j] = value;
+      return;
+    }
+    final DistDoubleArray that = this;
+    at(new Place(dist.id(r)), () -> that.array[j] = value);
+  }
+
+  /**
+   * Returns the elements at the indices {@code [from, to)}.
+   *
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the elements
+   */
+  public double[] get(long from, long to) {
+    return getRange(from, to);
+  }
+
+  /**
+   * Sets the elements at the indices starting at {@code from}.
+   *
+   * @param from the first index
+   * @param values the new values
+   */
+  public void put(long from, double[] values) {
+    putRange(from, values, values.length);
+  }
+
+  /**
+   * Returns the element at the given index of the local array of the current place.
+   *
+   * @param localIndex an index into the local array
+   * @return the element
+   */
+  public double getLocal(int localIndex) {
+    return array[localIndex];
+  }
+
+  /**
+   * Sets the element at the given index of the local array of the current place.
+   *
+   * @param localIndex an index into the local array
+   * @param value the new value
+   */
+  public void setLocal(int localIndex, double value) {
+    array[localIndex] = value;
+  }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.async;
+import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.asyncAtAll;
+import static apgas.Constructs.at;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+
+import apgas.Constructs;
+import apgas.Place;
+import apgas.SerializableBinaryOperator;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link DistHashMap} class implements a hash map partitioned across places.
+ *
+ * <p>Each key is owned by the place selected by the hash code of the key, which must therefore be
+ * the same at all places, as is the case for strings, boxed primitives, and records of these. Each
+ * place stores the entries it owns in a {@link ConcurrentHashMap}. Bulk operations send one
+ * message per owner. Merges are fire-and-forget and batched by owner.
+ *
+ * <p>After the places change, the map must be rebalanced with {@link #rebalance} from the place
+ * that created it: in {@link apgas.impl.elastic.MalleableHandler#postGrow} with the new places, and
+ * in {@link apgas.impl.elastic.MalleableHandler#preShrink} with the remaining places, so that the
+ * leaving places hand off their entries before leaving.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class DistHashMap<K extends Serializable, V extends Serializable>
+    extends PlaceLocalObject {
+
+  /** The maximal number of merges per message. */
+  static final int MAX_BATCH = 4096;
+
+  /** The IDs of the places holding the map in partition order. */
+  private volatile int[] ids;
+
+  /** The entries owned by the current place. */
+  private final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<>();
+
+  /** The pending merges to other places. */
+  private final FinishBatches<Merges<K, V>> merges =
+      new FinishBatches<>(Merges::new, batch -> batch.keys.size(), MAX_BATCH, this::sendMerges);
+
+  /**
+   * Initializes the local state of the map.
+   *
+   * @param ids the IDs of the places holding the map in partition order
+   */
+  private DistHashMap(int[] ids) {
+    this.ids = ids;
+  }
+
+  /**
+   * Constructs an empty map over the current places.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return the map
+   */
+  public static <K extends Serializable, V extends Serializable> DistHashMap<K, V> make() {
+    return make(Constructs.places());
+  }
+
+  /**
+   * Constructs an empty map over the given places.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @param places a collection of places with no repetition
+   * @return the map
+   */
+  public static <K extends Serializable, V extends Serializable> DistHashMap<K, V> make(
+      Collection<? extends Place> places) {
+    final int[] ids = places.stream().mapToInt(p -> p.id).toArray();
+    return PlaceLocalObject.make(places, () -> new DistHashMap<>(ids));
+  }
+
+  /**
+   * Returns the place owning the given key.
+   *
+   * @param key a key
+   * @return the owner of the key
+   */
+  public Place owner(K key) {
+    return new Place(owner(key, ids));
+  }
+
+  private static int owner(Object key, int[] ids) {
+    final int h = key.hashCode();
+    return ids[Math.floorMod(h ^ (h >>> 16), ids.length)];
+  }
+
+  /**
+   * Returns the entries owned by the current place.
+   *
+   * @return an unmodifiable view of the local partition
+   */
+  public Map<K, V> local() {
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * Returns the value associated with the given key.
+   *
+   * @param key a key
+   * @return the value or null if none
+   */
+  public V get(K key) {
+    final int owner = owner(key, ids);
+    if (owner == here().id) {
+      return map.get(key);
+    }
+    final DistHashMap<K, V> that = this;
+    return at(new Place(owner), () -> that.map.get(key));
+  }
+
+  /**
+   * Associates a value with the given key.
+   *
+   * @param key a key
+   * @param value a value
+   * @return the previous value or null if none
+   */
+  public V put(K key, V value) {
+    final int owner = owner(key, ids);
+    if (owner == here().id) {
+      return map.put(key, value);
+    }
+    final DistHashMap<K, V> that = this;
+    return at(new Place(owner), () -> that.map.put(key, value));
+  }
+
+  /**
+   * Removes the value associated with the given key.
+   *
+   * @param key a key
+   * @return the previous value or null if none
+   */
+  public V remove(K key) {
+    final int owner = owner(key, ids);
+    if (owner == here().id) {
+      return map.remove(key);
+    }
+    final DistHashMap<K, V> that = this;
+    return at(new Place(owner), () -> that.map.remove(key));
+  }
+
+  /**
+   * Returns the values associated with the given keys, sending one message per owner.
+   *
+   * @param keys a collection of keys
+   * @return the keys with a value and their values
+   */
+  public Map<K, V> getAll(Collection<? extends K> keys) {
+    final Map<Integer, ArrayList<K>> byOwner = new HashMap<>();
+    for (final K key : keys) {
+      byOwner.computeIfAbsent(owner(key, ids), id -> new ArrayList<>()).add(key);
+    }
+    final Map<K, V> result = new ConcurrentHashMap<>();
+    final DistHashMap<K, V> that = this;
+    finish(
+        () -> {
+          for (final Map.Entry<Integer, ArrayList<K>> entry : byOwner.entrySet()) {
+            final ArrayList<K> list = entry.getValue();
+            if (entry.getKey() == here().id) {
+              result.putAll(getLocal(list));
+            } else {
+              final Place owner = new Place(entry.getKey());
+              async(() -> result.putAll(at(owner, () -> that.getLocal(list))));
+            }
+          }
+        });
+    return result;
+  }
+
+  private HashMap<K, V> getLocal(List<K> keys) {
+    final HashMap<K, V> result = new HashMap<>();
+    for (final K key : keys) {
+      final V value = map.get(key);
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Associates values with keys, sending one message per owner.
+   *
+   * @param entries the keys and values
+   */
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    final Map<Integer, HashMap<K, V>> byOwner = new HashMap<>();
+    for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      byOwner
+          .computeIfAbsent(owner(entry.getKey(), ids), id -> new HashMap<>())
+          .put(entry.getKey(), entry.getValue());
+    }
+    final DistHashMap<K, V> that = this;
+    finish(
+        () -> {
+          for (final Map.Entry<Integer, HashMap<K, V>> entry : byOwner.entrySet()) {
+            final HashMap<K, V> part = entry.getValue();
+            if (entry.getKey() == here().id) {
+              map.putAll(part);
+            } else {
+              asyncAt(new Place(entry.getKey()), () -> that.map.putAll(part));
+            }
+          }
+        });
+  }
+
+  /**
+   * Combines a value with the value associated with the given key at its owner and returns
+   * immediately, as in {@link Map#merge}.
+   *
+   * <p>Merges to other places are batched by enclosing finish and owner (see {@link
+   * FinishBatches}). The merges are applied when the enclosing finish completes.
+   *
+   * @param key a key
+   * @param value the value to associate if none, or to combine with the current value
+   * @param function the function combining the current and given values, removing the entry if
+   *     it returns null
+   */
+  public void merge(K key, V value, SerializableBinaryOperator<V> function) {
+    final int owner = owner(key, ids);
+    if (owner == here().id) {
+      map.merge(key, value, function);
+      return;
+    }
+    merges.add(new Place(owner), batch -> batch.add(key, value, function));
+  }
+
+  private void sendMerges(Place owner, Merges<K, V> batch) {
+    final DistHashMap<K, V> that = this;
+    asyncAt(owner, () -> batch.applyTo(that.map));
+  }
+
+  /**
+   * Returns the number of entries of the map.
+   *
+   * @return the sum of the sizes of the partitions
+   */
+  public long size() {
+    long size = 0;
+    final DistHashMap<K, V> that = this;
+    for (final int id : ids) {
+      size += id == here().id ? map.size() : at(new Place(id), () -> that.map.size());
+    }
+    return size;
+  }
+
+  /**
+   * Repartitions the map over new places.
+   *
+   * <p>Must be called from the place where the map was created, while no other operation on the
+   * map is in progress. The places leaving the map send their entries to the new owners and forget
+   * the map, except for the home place.
+   *
+   * @param places the new places holding the map
+   * @throws BadPlaceException if not invoked from the home place of the map
+   */
+  public void rebalance(Collection<? extends Place> places) {
+    if (!id.home.equals(here())) {
+      throw new BadPlaceException();
+    }
+    final int[] oldIds = ids;
+    final int[] newIds = places.stream().mapToInt(p -> p.id).toArray();
+    final GlobalID gid = id;
+    // create the map at the new places
+    finish(
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  @SuppressWarnings("unchecked")
+                  final DistHashMap<K, V> existing =
+                      (DistHashMap<K, V>) gid.getOrDefaultHere(null);
+                  if (existing == null) {
+                    final DistHashMap<K, V> local = new DistHashMap<>(newIds);
+                    local.id = gid;
+                    gid.putHere(local);
+                  } else {
+                    // e.g. the home place rejoining, which kept the map but not the old members
+                    existing.ids = newIds;
+                  }
+                }));
+    // move the entries to their new owners
+    final List<Place> old = new ArrayList<>();
+    for (final int id : oldIds) {
+      old.add(new Place(id));
+    }
+    final DistHashMap<K, V> that = this;
+    finish(() -> asyncAtAll(old, () -> that.repartition(newIds)));
+    // forget the map at the places that left
+    final List<Place> leaving = new ArrayList<>();
+    for (final int id : oldIds) {
+      if (id != here().id && Arrays.stream(newIds).noneMatch(i -> i == id)) {
+        leaving.add(new Place(id));
+      }
+    }
+    finish(() -> asyncAtAll(leaving, () -> gid.removeHere()));
+    // the home place keeps the map even when it is not a member
+    ids = newIds;
+  }
+
+  /**
+   * Sends the local entries no longer owned by the current place to their new owners.
+   *
+   * @param newIds the IDs of the new places holding the map in partition order
+   */
+  private void repartition(int[] newIds) {
+    final Map<Integer, HashMap<K, V>> moving = new HashMap<>();
+    for (final Map.Entry<K, V> entry : map.entrySet()) {
+      final int owner = owner(entry.getKey(), newIds);
+      if (owner != here().id) {
+        moving.computeIfAbsent(owner, id -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+      }
+    }
+    final DistHashMap<K, V> that = this;
+    for (final Map.Entry<Integer, HashMap<K, V>> entry : moving.entrySet()) {
+      final HashMap<K, V> part = entry.getValue();
+      map.keySet().removeAll(part.keySet());
+      asyncAt(new Place(entry.getKey()), () -> that.map.putAll(part));
+    }
+    ids = newIds;
+  }
+
+  /**
+   * A batch of merges to the same place.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  private static final class Merges<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 3412968230963409621L;
+
+    /** The keys of the merges. */
+    private final ArrayList<K> keys = new ArrayList<>();
+
+    /** The values of the merges. */
+    private final ArrayList<V> values = new ArrayList<>();
+
+    /** The combining functions of the merges. */
+    private final ArrayList<SerializableBinaryOperator<V>> functions = new ArrayList<>();
+
+    private void add(K key, V value, SerializableBinaryOperator<V> function) {
+      keys.add(key);
+      values.add(value);
+      functions.add(function);
+    }
+
+    private void applyTo(ConcurrentHashMap<K, V> map) {
+      for (int i = 0; i < keys.size(); i++) {
+        map.merge(keys.get(i), values.get(i), functions.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import apgas.Place;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link Distribution} maps the indices {@code [0, length)} of a distributed array to places.
+ *
+ * <p>Indices are grouped into consecutive blocks of {@link #blockSize()} indices and blocks are
+ * dealt to the places in round-robin order. The block distribution, with one block per place, and
+ * the cyclic distribution, with blocks of one index, are the two extreme cases. Each place stores
+ * its blocks contiguously in a local array.
+ */
+public final class Distribution implements Serializable {
+
+  private static final long serialVersionUID = 4032412839108521634L;
+
+  /** The IDs of the places in distribution order. */
+  private final int[] ids;
+
+  /** The number of indices. */
+  private final long length;
+
+  /** The number of consecutive indices mapped to the same place. */
+  private final long blockSize;
+
+  /**
+   * Constructs a block-cyclic distribution.
+   *
+   * @param places a collection of places with no repetition
+   * @param length the number of indices
+   * @param blockSize the number of consecutive indices mapped to the same place
+   */
+  private Distribution(Collection<? extends Place> places, long length, long blockSize) {
+    if (places.isEmpty() || length < 0 || blockSize < 1) {
+      throw new IllegalArgumentException(
+          "invalid distribution of " + length + " indices in blocks of " + blockSize);
+    }
+    ids = places.stream().mapToInt(p -> p.id).toArray();
+    this.length = length;
+    this.blockSize = blockSize;
+    for (int rank = 0; rank < ids.length; rank++) {
+      if (localLength(rank) > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "too many indices per place for a distribution of " + length + " indices");
+      }
+    }
+  }
+
+  /**
+   * Returns a distribution mapping one block of consecutive indices to each place.
+   *
+   * @param places a collection of places with no repetition
+   * @param length the number of indices
+   * @return the block distribution
+   */
+  public static Distribution block(Collection<? extends Place> places, long length) {
+    final int n = Math.max(1, places.size());
+    final long blockSize = (length + n - 1) / n;
+    return new Distribution(places, length, Math.max(1, blockSize));
+  }
+
+  /**
+   * Returns a distribution mapping consecutive indices to consecutive places.
+   *
+   * @param places a collection of places with no repetition
+   * @param length the number of indices
+   * @return the cyclic distribution
+   */
+  public static Distribution cyclic(Collection<? extends Place> places, long length) {
+    return new Distribution(places, length, 1);
+  }
+
+  /**
+   * Returns a distribution mapping blocks of consecutive indices to places in round-robin order.
+   *
+   * @param places a collection of places with no repetition
+   * @param length the number of indices
+   * @param blockSize the number of consecutive indices mapped to the same place
+   * @return the block-cyclic distribution
+   */
+  public static Distribution blockCyclic(
+      Collection<? extends Place> places, long length, long blockSize) {
+    return new Distribution(places, length, blockSize);
+  }
+
+  /**
+   * Returns the number of indices.
+   *
+   * @return the length of the distributed array
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Returns the number of consecutive indices mapped to the same place.
+   *
+   * @return the block size
+   */
+  public long blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Returns the places of this distribution.
+   *
+   * @return the places in distribution order
+   */
+  public List<Place> places() {
+    final List<Place> places = new ArrayList<>(ids.length);
+    for (final int id : ids) {
+      places.add(new Place(id));
+    }
+    return places;
+  }
+
+  /**
+   * Returns the place holding the given index.
+   *
+   * @param index an index
+   * @return the owner of the index
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public Place owner(long index) {
+    return new Place(ids[rank(index)]);
+  }
+
+  /**
+   * Returns the number of indices held by the given place.
+   *
+   * @param place a place
+   * @return the number of indices held by the place or 0 if not in the distribution
+   */
+  public long localLength(Place place) {
+    final int rank = rankOf(place.id);
+    return rank < 0 ? 0 : localLength(rank);
+  }
+
+  /**
+   * Returns the position of the place holding the given index.
+   *
+   * @param index an index
+   * @return the rank of the owner
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  int rank(long index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("index " + index + " out of range [0, " + length + ")");
+    }
+    return (int) (index / blockSize % ids.length);
+  }
+
+  /**
+   * Returns the position of a place in this distribution.
+   *
+   * @param id a place ID
+   * @return the rank of the place or -1 if not in the distribution
+   */
+  int rankOf(int id) {
+    for (int rank = 0; rank < ids.length; rank++) {
+      if (ids[rank] == id) {
+        return rank;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the ID of the place at the given position.
+   *
+   * @param rank a position
+   * @return the place ID
+   */
+  int id(int rank) {
+    return ids[rank];
+  }
+
+  /**
+   * Returns the number of places.
+   *
+   * @return the number of places
+   */
+  int size() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the index in the local array of its owner of the given index.
+   *
+   * @param index an index
+   * @return the local index
+   */
+  int localIndex(long index) {
+    return (int) (index / blockSize / ids.length * blockSize + index % blockSize);
+  }
+
+  /**
+   * Returns the index corresponding to the given local index of a place.
+   *
+   * @param rank the position of the place
+   * @param localIndex a local index
+   * @return the index
+   */
+  long globalIndex(int rank, int localIndex) {
+    return (localIndex / blockSize * ids.length + rank) * blockSize + localIndex % blockSize;
+  }
+
+  /**
+   * Returns the number of indices held by the place at the given position.
+   *
+   * @param rank the position of the place
+   * @return the length of its local array
+   */
+  long localLength(int rank) {
+    final long blocks = (length + blockSize - 1) / blockSize;
+    if (rank >= blocks) {
+      return 0;
+    }
+    final long count = (blocks - 1 - rank) / ids.length + 1;
+    final long last = (blocks - 1) % ids.length == rank ? blocks * blockSize - length : 0;
+    return count * blockSize - last;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.async;
+
+import apgas.Place;
+import apgas.impl.GlobalRuntimeImpl;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * The {@link FinishBatches} class batches fire-and-forget operations by enclosing finish and
+ * destination place.
+ *
+ * <p>The first operation of a batch spawns a local task in the enclosing finish of the caller to
+ * send the batch. Operations made by tasks of the same finish before this task runs join the batch.
+ * A batch reaching its maximal size is sent immediately. Since each batch only holds operations of
+ * a single finish and is sent by a task of this finish, the operations are applied when their
+ * finish completes.
+ *
+ * @param <B> the type of the batches
+ */
+final class FinishBatches<B> {
+
+  /** The function returning an empty batch. */
+  private final Supplier<B> factory;
+
+  /** The function returning the number of operations in a batch. */
+  private final ToIntFunction<B> size;
+
+  /** The maximal number of operations per batch. */
+  private final int maxSize;
+
+  /** The function sending a batch. */
+  private final Sender<B> sender;
+
+  /** The pending batches by finish and destination place. */
+  private final Map<Key, Pending<B>> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an empty set of batches.
+   *
+   * @param factory the function returning an empty batch
+   * @param size the function returning the number of operations in a batch
+   * @param maxSize the maximal number of operations per batch
+   * @param sender the function sending a batch
+   */
+  FinishBatches(Supplier<B> factory, ToIntFunction<B> size, int maxSize, Sender<B> sender) {
+    this.factory = factory;
+    this.size = size;
+    this.maxSize = maxSize;
+    this.sender = sender;
+  }
+
+  /**
+   * Queues an operation.
+   *
+   * @param place the destination place
+   * @param adder the function adding the operation to the pending batch
+   */
+  void add(Place place, Consumer<B> adder) {
+    final Key key = new Key(GlobalRuntimeImpl.getRuntime().currentFinish(), place.id);
+    for (; ; ) {
+      final Pending<B> p = pending.computeIfAbsent(key, k -> new Pending<>(factory.get()));
+      B full = null;
+      final boolean schedule;
+      synchronized (p) {
+        if (p.batch == null) {
+          // the batch has just been sent, open a new one
+          continue;
+        }
+        adder.accept(p.batch);
+        if (size.applyAsInt(p.batch) >= maxSize) {
+          full = p.batch;
+          p.batch = factory.get();
+        }
+        schedule = !p.scheduled;
+        p.scheduled = true;
+      }
+      if (full != null) {
+        sender.send(place, full);
+      }
+      if (schedule) {
+        async(() -> flush(key, place, p));
+      }
+      return;
+    }
+  }
+
+  /**
+   * Sends and closes a pending batch.
+   *
+   * @param key the finish and destination place of the batch
+   * @param place the destination place
+   * @param p the pending batch
+   */
+  private void flush(Key key, Place place, Pending<B> p) {
+    final B batch;
+    synchronized (p) {
+      pending.remove(key, p);
+      batch = p.batch;
+      p.batch = null;
+    }
+    if (size.applyAsInt(batch) > 0) {
+      sender.send(place, batch);
+    }
+  }
+
+  /**
+   * The function sending a batch.
+   *
+   * @param <B> the type of the batches
+   */
+  @FunctionalInterface
+  interface Sender<B> {
+
+    /**
+     * Sends a batch.
+     *
+     * @param place the destination place
+     * @param batch the batch
+     */
+    void send(Place place, B batch);
+  }
+
+  /** The finish and destination place of a batch. */
+  private static final class Key {
+
+    /** The finish, compared by identity. */
+    private final Object finish;
+
+    /** The ID of the destination place. */
+    private final int place;
+
+    private Key(Object finish, int place) {
+      this.finish = finish;
+      this.place = place;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      return that instanceof Key && finish == ((Key) that).finish && place == ((Key) that).place;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(finish) + place;
+    }
+  }
+
+  /**
+   * A pending batch.
+   *
+   * @param <B> the type of the batches
+   */
+  private static final class Pending<B> {
+
+    /** The operations or null once the batch has been sent. */
+    B batch;
+
+    /** Whether a task is scheduled to send the batch. */
+    boolean scheduled;
+
+    private Pending(B batch) {
+      this.batch = batch;
+    }
+  }
+}
@@ -11,30 +11,35 @@
 
 package apgas.util;
 
-import static apgas.Constructs.async;
-import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.asyncAtAll;
 import static apgas.Constructs.finish;
 import static apgas.Constructs.here;
 
 import apgas.DeadPlaceException;
 import apgas.Place;
+import apgas.impl.GlobalRuntimeImpl;
+import com.hazelcast.core.PartitionAware;
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The {@link GlobalID} class provides globally unique IDs and mechanisms to attach place-specific
  * data to these IDs.
+ *
+ * <p>When used as a key of a Hazelcast map, a {@link GlobalID} is stored in a partition owned by
+ * its home place at construction time (see {@link #getPartitionKey()}).
+ *
+ * <p>The data attached at a place is kept in a registry keyed by the {@code long} value of the IDs,
+ * which the static methods access without a {@link GlobalID} instance.
  */
-public class GlobalID implements Serializable {
+public class GlobalID implements Serializable, PartitionAware<Integer> {
 
   /** Internal counter. */
   private static final AtomicInteger count = new AtomicInteger();
 
   /** Internal map. */
-  private static final Map<GlobalID, Object> map = new ConcurrentHashMap<>();
+  private static final ConcurrentLongMap map = new ConcurrentLongMap();
 
   private static final Object NULL = new Object();
 
@@ -50,10 +55,103 @@ public class GlobalID implements Serializable {
    */
   private final int lid;
 
+  /** The Hazelcast partition key of this {@link GlobalID} instance. */
+  private final int partitionKey;
+
   /** Constructs a new {@link GlobalID}. */
   public GlobalID() {
     home = here();
     lid = count.getAndIncrement();
+    partitionKey = GlobalRuntimeImpl.getRuntime().partitionKey();
+  }
+
+  /**
+   * Returns a new globally unique {@code long} ID without instantiating a {@link GlobalID}.
+   *
+   * @return a globally unique ID
+   */
+  public static long newGid() {
+    return gid(here().id, count.getAndIncrement());
+  }
+
+  /**
+   * Returns the globally unique {@code long} ID made of a place ID and a local ID.
+   *
+   * @param home the ID of the home place
+   * @param lid the local ID
+   * @return a globally unique ID
+   */
+  static long gid(int home, int lid) {
+    return ((long) home << 32) + lid;
+  }
+
+  /**
+   * Returns the ID of the place where a globally unique ID was created.
+   *
+   * @param gid a globally unique ID
+   * @return the ID of the home place
+   */
+  public static int home(long gid) {
+    return (int) ((gid - (int) gid) >> 32);
+  }
+
+  /**
+   * Returns the value associated with a globally unique ID at the current place.
+   *
+   * @param gid a globally unique ID
+   * @return the current value or null if none
+   */
+  public static Object getHere(long gid) {
+    final Object result = map.get(gid);
+    return result == NULL ? null : result;
+  }
+
+  /**
+   * Associates a value with a globally unique ID at the current place.
+   *
+   * @param gid a globally unique ID
+   * @param value the value to associate with the ID
+   * @return the previous value
+   */
+  public static Object putHere(long gid, Object value) {
+    final Object result = map.put(gid, value == null ? NULL : value);
+    return result == NULL ? null : result;
+  }
+
+  /**
+   * Associates a value with a globally unique ID at the current place if not already associated
+   * with a value.
+   *
+   * @param gid a globally unique ID
+   * @param value the value to associate with the ID
+   * @return the previous value
+   */
+  public static Object putHereIfAbsent(long gid, Object value) {
+    final Object result = map.putIfAbsent(gid, value == null ? NULL : value);
+    return result == NULL ? null : result;
+  }
+
+  /**
+   * Removes the value associated with a globally unique ID at the current place if any.
+   *
+   * @param gid a globally unique ID
+   * @return the removed value
+   */
+  public static Object removeHere(long gid) {
+    final Object result = map.remove(gid);
+    return result == NULL ? null : result;
+  }
+
+  /**
+   * Removes the value associated with a globally unique ID at the current place if it is the given
+   * value.
+   *
+   * @param gid a globally unique ID
+   * @param value the expected value
+   * @return true if the value was removed
+   */
+  public static boolean removeHere(long gid, Object value) {
+    return map.remove(gid, value == null ? NULL : value);
   }
 
   @Override
@@ -67,8 +165,7 @@ public class GlobalID implements Serializable {
    * @return the current value
    */
   public Object getHere() {
-    final Object result = map.get(this);
-    return result == NULL ? null : result;
+    return getHere(gid());
   }
 
   /**
@@ -79,8 +176,21 @@ public class GlobalID implements Serializable {
    * @return the current or default value
    */
   public Object getOrDefaultHere(Object defaultValue) {
-    final Object result = map.getOrDefault(this, defaultValue);
-    return result == NULL ? null : result;
+    final Object result = map.get(gid());
+    return result == null ? defaultValue : result == NULL ? null : result;
+  }
+
+  /**
+   * Returns the Hazelcast partition key of this {@link GlobalID} instance.
+   *
+   * <p>The key is chosen at construction time so that the partition is owned by the home place. It
+   * is not part of the identity of the {@link GlobalID}.
+   *
+   * @return the partition key
+   */
+  @Override
+  public Integer getPartitionKey() {
+    return partitionKey;
   }
 
   /**
@@ -89,7 +199,7 @@ public class GlobalID implements Serializable {
    * @return a globally unique ID
    */
   public long gid() {
-    return ((long) home.id << 32) + lid;
+    return gid(home.id, lid);
   }
 
   @Override
@@ -104,8 +214,7 @@ public class GlobalID implements Serializable {
    * @return the previous value
    */
   public Object putHere(Object value) {
-    final Object result = map.put(this, value == null ? NULL : value);
-    return result == NULL ? null : result;
+    return putHere(gid(), value);
   }
 
   /**
@@ -116,8 +225,7 @@ public class GlobalID implements Serializable {
    * @return the previous value
    */
   public Object putHereIfAbsent(Object value) {
-    final Object result = map.putIfAbsent(this, value == null ? NULL : value);
-    return result == NULL ? null : result;
+    return putHereIfAbsent(gid(), value);
   }
 
   /**
@@ -130,22 +238,12 @@ public class GlobalID implements Serializable {
   public void remove(Collection<? extends Place> places) {
     final GlobalID that = this;
     finish(
-        () -> {
-          for (final Place p : places) {
-            try {
-              asyncAt(
-                  p,
-                  () -> {
-                    that.removeHere();
-                  });
-            } catch (final DeadPlaceException e) {
-              async(
-                  () -> {
-                    throw e;
-                  });
-            }
-          }
-        });
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  that.removeHere();
+                }));
   }
 
   /**
@@ -154,8 +252,26 @@ public class GlobalID implements Serializable {
    * @return the removed value
    */
   public Object removeHere() {
-    final Object result = map.remove(this);
-    return result == NULL ? null : result;
+    return removeHere(gid());
+  }
+
+  /**
+   * Removes the value associated with this {@link GlobalID} instance if it is the given value.
+   *
+   * @param value the expected value
+   * @return true if the value was removed
+   */
+  public boolean removeHere(Object value) {
+    return removeHere(gid(), value);
+  }
+
+  /**
+   * Returns the number of {@link GlobalID} instances associated with a value at the current place.
+   *
+   * @return the size of the local registry
+   */
+  public static int sizeHere() {
+    return map.size();
   }
 
   @Override
@@ -11,12 +11,10 @@
 
 package apgas.util;
 
-import static apgas.Constructs.async;
-import static apgas.Constructs.asyncAt;
+import static apgas.Constructs.asyncAtAll;
 import static apgas.Constructs.finish;
 import static apgas.Constructs.here;
 
-import apgas.DeadPlaceException;
 import apgas.Place;
 import apgas.SerializableCallable;
 import java.io.Serializable;
@@ -58,22 +56,12 @@ public class GlobalRef<T> implements Serializable {
     id = new GlobalID();
     this.places = places;
     finish(
-        () -> {
-          for (final Place p : places) {
-            try {
-              asyncAt(
-                  p,
-                  () -> {
-                    id.putHere(initializer.call());
-                  });
-            } catch (final DeadPlaceException e) {
-              async(
-                  () -> {
-                    throw e;
-                  });
-            }
-          }
-        });
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  id.putHere(initializer.call());
+                }));
   }
 
   /**
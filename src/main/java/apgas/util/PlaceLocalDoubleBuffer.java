@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import apgas.Place;
+import java.nio.DoubleBuffer;
+import java.util.Collection;
+
+/**
+ * The {@link PlaceLocalDoubleBuffer} class implements a map from places to off-heap {@code double}
+ * arrays.
+ *
+ * <p>The local arrays are stored outside of the Java heap. {@link #drop()} drops them, and the
+ * garbage collector then reclaims their memory.
+ */
+public class PlaceLocalDoubleBuffer extends AbstractPlaceLocalBuffer {
+
+  /**
+   * Allocates the local array.
+   *
+   * @param ids the IDs of the places holding a local array
+   * @param n the length of the local array
+   */
+  private PlaceLocalDoubleBuffer(int[] ids, long n) {
+    super(ids, n);
+  }
+
+  /**
+   * Constructs a {@link PlaceLocalDoubleBuffer} instance initialized with zeros.
+   *
+   * @param places a collection of places with no repetition
+   * @param localLength the length of each chunk
+   * @return the place local array
+   */
+  public static PlaceLocalDoubleBuffer make(Collection<? extends Place> places, long localLength) {
+    final int[] ids = ids(places);
+    return PlaceLocalObject.make(places, () -> new PlaceLocalDoubleBuffer(ids, localLength));
+  }
+
+  /**
+   * Returns the local array element at the specified index
+   *
+   * @param index an index into the local array
+   * @return the array element
+   */
+  public double get(long index) {
+    return chunk(index).getDouble(offset(index));
+  }
+
+  /**
+   * Sets the local array element at the specified index
+   *
+   * @param index an index into the local array
+   * @param t the desired value
+   */
+  public void set(long index, double t) {
+    chunk(index).putDouble(offset(index), t);
+  }
+
+  /**
+   * Copies elements of the local array into an array.
+   *
+   * @param from the first index into the local array
+   * @param dst the destination array
+   * @param offset the first index into the destination array
+   * @param n the number of elements
+   */
+  public void get(long from, double[] dst, int offset, int n) {
+    checkRange(from, n);
+    for (int i = 0; i < n; ) {
+      final DoubleBuffer buffer = slice(from + i, n - i).asDoubleBuffer();
+      final int count = buffer.remaining();
+      buffer.get(dst, offset + i, count);
+      i += count;
+    }
+  }
+
+  /**
+   * Copies elements of an array into the local array.
+   *
+   * @param from the first index into the local array
+   * @param src the source array
+   * @param offset the first index into the source array
+   * @param n the number of elements
+   */
+  public void put(long from, double[] src, int offset, int n) {
+    checkRange(from, n);
+    for (int i = 0; i < n; ) {
+      final DoubleBuffer buffer = slice(from + i, n - i).asDoubleBuffer();
+      final int count = buffer.remaining();
+      buffer.put(src, offset + i, count);
+      i += count;
+    }
+  }
+}
@@ -11,11 +11,24 @@
 
 package apgas.util;
 
+import static apgas.Constructs.here;
+
 import apgas.Place;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Collection;
 
-/** The {@link PlaceLocalIntArray} class implements a map from places to {@code int} arrays. */
-public class PlaceLocalIntArray extends PlaceLocalObject {
+/**
+ * The {@link PlaceLocalIntArray} class implements a map from places to {@code int} arrays.
+ *
+ * <p>The atomic operations may target the local array of any place and are executed at that place.
+ * The additions of {@link #addAt} are batched by destination place. {@link #getRemote} and {@link
+ * #putRemote} access the local array of another place with one request and one reply.
+ */
+public class PlaceLocalIntArray extends AbstractPlaceLocalArray<int[]> {
+
+  /** The handle for atomic accesses to the local array. */
+  private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(int[].class);
 
   /** The local array. */
   private final int[] array;
@@ -26,11 +39,12 @@ public class PlaceLocalIntArray extends PlaceLocalObject {
    * @param n the length of the local array
    */
   private PlaceLocalIntArray(int n) {
+    super(RemoteAdds.INTS);
     array = new int[n];
   }
 
   /**
-   * Constructs a {@link PlaceLocalArray} instance.
+   * Constructs a {@link PlaceLocalIntArray} instance.
    *
    * @param places a collection of places with no repetition
    * @param localLength the length of each chunk
@@ -59,4 +73,89 @@ public class PlaceLocalIntArray extends PlaceLocalObject {
   public void set(int index, int t) {
     array[index] = t;
   }
+
+  /**
+   * Atomically adds to the array element at the specified index of the local array of a place.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param delta the value to add
+   * @return the previous value
+   */
+  public int fetchAdd(Place place, int index, int delta) {
+    return apply(place, a -> (int) ELEMENTS.getAndAdd(a, index, delta));
+  }
+
+  /**
+   * Atomically sets the array element at the specified index of the local array of a place if it
+   * has the expected value.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param expected the expected value
+   * @param t the desired value
+   * @return true if the element was updated
+   */
+  public boolean compareAndSet(Place place, int index, int expected, int t) {
+    return apply(place, a -> ELEMENTS.compareAndSet(a, index, expected, t));
+  }
+
+  /**
+   * Atomically sets the array element at the specified index of the local array of a place.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param t the desired value
+   * @return the previous value
+   */
+  public int getAndSet(Place place, int index, int t) {
+    return apply(place, a -> (int) ELEMENTS.getAndSet(a, index, t));
+  }
+
+  /**
+   * Atomically adds to the array element at the specified index of the local array of a place and
+   * returns immediately.
+   *
+   * <p>Additions to other places are batched by enclosing finish and destination place and sent by
+   * tasks of the enclosing finish. The additions are applied when the enclosing finish completes.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param delta the value to add
+   */
+  public void addAt(Place place, int index, int delta) {
+    if (place.id == here().id) {
+      ELEMENTS.getAndAdd(array, index, delta);
+    } else {
+      adds.add(place, index, delta);
+    }
+  }
+
+  @Override
+  int[] local() {
+    return array;
+  }
+
+  @Override
+  int[] get(int[] indices) {
+    final int[] values = new int[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      values[i] = array[indices[i]];
+    }
+    return values;
+  }
+
+  @Override
+  void put(int[] indices, int[] values) {
+    for (int i = 0; i < indices.length; i++) {
+      array[indices[i]] = values[i];
+    }
+  }
+
+  @Override
+  void addAll(int[] indices, int[] deltas) {
+    for (int i = 0; i < indices.length; i++) {
+      ELEMENTS.getAndAdd(array, indices[i], deltas[i]);
+    }
+  }
 }
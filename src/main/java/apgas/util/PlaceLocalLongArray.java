@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.here;
+
+import apgas.Place;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+/**
+ * The {@link PlaceLocalLongArray} class implements a map from places to {@code long} arrays.
+ *
+ * <p>The atomic operations may target the local array of any place and are executed at that place.
+ * The additions of {@link #addAt} are batched by destination place. {@link #getRemote} and {@link
+ * #putRemote} access the local array of another place with one request and one reply.
+ */
+public class PlaceLocalLongArray extends AbstractPlaceLocalArray<long[]> {
+
+  /** The handle for atomic accesses to the local array. */
+  private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  /** The local array. */
+  private final long[] array;
+
+  /**
+   * Initializes the local array.
+   *
+   * @param n the length of the local array
+   */
+  private PlaceLocalLongArray(int n) {
+    super(RemoteAdds.LONGS);
+    array = new long[n];
+  }
+
+  /**
+   * Constructs a {@link PlaceLocalLongArray} instance.
+   *
+   * @param places a collection of places with no repetition
+   * @param localLength the length of each chunk
+   * @return the place local array
+   */
+  public static PlaceLocalLongArray make(Collection<? extends Place> places, int localLength) {
+    return PlaceLocalObject.make(places, () -> new PlaceLocalLongArray(localLength));
+  }
+
+  /**
+   * Returns the local array element at the specified index
+   *
+   * @param index an index into the local array
+   * @return the array element
+   */
+  public long get(int index) {
+    return array[index];
+  }
+
+  /**
+   * Sets the local array element at the specified index
+   *
+   * @param index an index into the local array
+   * @param t the desired value
+   */
+  public void set(int index, long t) {
+    array[index] = t;
+  }
+
+  /**
+   * Atomically adds to the array element at the specified index of the local array of a place.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param delta the value to add
+   * @return the previous value
+   */
+  public long fetchAdd(Place place, int index, long delta) {
+    return apply(place, a -> (long) ELEMENTS.getAndAdd(a, index, delta));
+  }
+
+  /**
+   * Atomically sets the array element at the specified index of the local array of a place if it
+   * has the expected value.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param expected the expected value
+   * @param t the desired value
+   * @return true if the element was updated
+   */
+  public boolean compareAndSet(Place place, int index, long expected, long t) {
+    return apply(place, a -> ELEMENTS.compareAndSet(a, index, expected, t));
+  }
+
+  /**
+   * Atomically sets the array element at the specified index of the local array of a place.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param t the desired value
+   * @return the previous value
+   */
+  public long getAndSet(Place place, int index, long t) {
+    return apply(place, a -> (long) ELEMENTS.getAndSet(a, index, t));
+  }
+
+  /**
+   * Atomically adds to the array element at the specified index of the local array of a place and
+   * returns immediately.
+   *
+   * <p>Additions to other places are batched by enclosing finish and destination place and sent by
+   * tasks of the enclosing finish. The additions are applied when the enclosing finish completes.
+   *
+   * @param place the place holding the element
+   * @param index an index into the local array of the place
+   * @param delta the value to add
+   */
+  public void addAt(Place place, int index, long delta) {
+    if (place.id == here().id) {
+      ELEMENTS.getAndAdd(array, index, delta);
+    } else {
+      adds.add(place, index, delta);
+    }
+  }
+
+  @Override
+  long[] local() {
+    return array;
+  }
+
+  @Override
+  long[] get(int[] indices) {
+    final long[] values = new long[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      values[i] = array[indices[i]];
+    }
+    return values;
+  }
+
+  @Override
+  void put(int[] indices, long[] values) {
+    for (int i = 0; i < indices.length; i++) {
+      array[indices[i]] = values[i];
+    }
+  }
+
+  @Override
+  void addAll(int[] indices, long[] deltas) {
+    for (int i = 0; i < indices.length; i++) {
+      ELEMENTS.getAndAdd(array, indices[i], deltas[i]);
+    }
+  }
+}
@@ -17,6 +17,8 @@ import apgas.Constructs;
 import apgas.DeadPlaceException;
 import apgas.Place;
 import apgas.SerializableCallable;
+import apgas.impl.Task;
+import java.io.InvalidObjectException;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
@@ -27,12 +29,18 @@ import java.util.Collection;
  * <p>Serializing a place local object across places does not replicate the object as usual but
  * instead transfer the {@link GlobalID} of the place local object instance. This id is resolved at
  * the destination place to the object local to the place.
+ *
+ * <p>A place local object constructed with {@link #makeLazy(SerializableCallable)} is initialized
+ * at each place on the first deserialization of the object at the place instead.
  */
 public class PlaceLocalObject implements Serializable {
 
   /** The {@link GlobalID} of this {@link PlaceLocalObject} instance. */
   public GlobalID id; // package private
 
+  /** The function to evaluate to initialize the object at other places if lazy or null. */
+  transient SerializableCallable<? extends PlaceLocalObject> initializer;
+
   /**
    * Returns the {@link GlobalID} of the given {@link PlaceLocalObject} instance.
    *
@@ -57,17 +65,14 @@ public class PlaceLocalObject implements Serializable {
     final GlobalID idLocal = new GlobalID();
     try {
       finish(
-          () -> {
-            for (final Place p : places) {
-              Constructs.asyncAt(
-                  p,
+          () ->
+              Constructs.asyncAtAll(
+                  places,
                   () -> {
                     final T t = initializer.call();
                     t.id = idLocal;
                     idLocal.putHere(t);
-                  });
-            }
-          });
+                  }));
     } catch (final DeadPlaceException e) {
       idLocal.remove(places);
       throw e;
@@ -75,6 +80,42 @@ public class PlaceLocalObject implements Serializable {
     return (T) idLocal.getHere();
   }
 
+  /**
+   * Constructs a lazily-initialized {@link PlaceLocalObject} instance.
+   *
+   * <p>The initializer is evaluated at the current place before returning, and at any other place,
+   * including places added later, when the object is first deserialized at the place. Tasks sent
+   * from a place holding a lazy object are deserialized when they start, so the initializer runs in
+   * the first task using the object at a place. It may use {@link Constructs#at} and {@link
+   * Constructs#finish}, and its failure is reported to the finish of the task like an exception
+   * thrown by the task. References received by immediate tasks are resolved on the thread
+   * receiving the message, where the initializer must not block and a failure drops the message.
+   *
+   * <p>Since the sender of a reference does not know whether the destination already holds the
+   * object, every serialized reference to a lazy object carries the initializer, not just its
+   * {@link GlobalID}. Objects sent in many small messages should capture as little state as
+   * possible in their initializer, or be constructed eagerly with {@link #make}.
+   *
+   * @param <T> the type of the constructed place local object
+   * @param initializer the function to evaluate to initialize the objects
+   * @return the place local object instance
+   */
+  public static <T extends PlaceLocalObject> T makeLazy(SerializableCallable<T> initializer) {
+    final T t;
+    try {
+      t = initializer.call();
+    } catch (final RuntimeException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new RuntimeException("initializer failed", e);
+    }
+    t.id = new GlobalID();
+    t.initializer = initializer;
+    t.id.putHere(t);
+    Task.deferDeserialization();
+    return t;
+  }
+
   /**
    * Constructs a reference to this {@link PlaceLocalObject} instance.
    *
@@ -82,21 +123,60 @@ public class PlaceLocalObject implements Serializable {
    * @throws ObjectStreamException N/A
    */
   public Object writeReplace() throws ObjectStreamException {
-    return new ObjectReference(id);
+    if (initializer != null) {
+      return new LazyObjectReference(id, initializer);
+    }
+    return new ObjectReference(id.gid());
   }
 
   private static final class ObjectReference implements Serializable {
 
     private static final long serialVersionUID = -2416972795695833335L;
 
+    private final long gid;
+
+    private ObjectReference(long gid) {
+      this.gid = gid;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+      return GlobalID.getHere(gid);
+    }
+  }
+
+  private static final class LazyObjectReference implements Serializable {
+
+    private static final long serialVersionUID = 3062413766950916185L;
+
     private final GlobalID id;
 
-    private ObjectReference(GlobalID id) {
+    private final SerializableCallable<? extends PlaceLocalObject> initializer;
+
+    private LazyObjectReference(
+        GlobalID id, SerializableCallable<? extends PlaceLocalObject> initializer) {
       this.id = id;
+      this.initializer = initializer;
     }
 
     private Object readResolve() throws ObjectStreamException {
-      return id.getHere();
+      final Object local = id.getHere();
+      if (local != null) {
+        return local;
+      }
+      // this place may now send the object in turn
+      Task.deferDeserialization();
+      final PlaceLocalObject t;
+      try {
+        t = initializer.call();
+      } catch (final Exception e) {
+        final InvalidObjectException ex = new InvalidObjectException("initializer failed");
+        ex.initCause(e);
+        throw ex;
+      }
+      t.id = id;
+      t.initializer = initializer;
+      final Object previous = id.putHereIfAbsent(t);
+      return previous == null ? t : previous;
     }
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import apgas.Place;
+import java.util.Arrays;
+
+/**
+ * The {@link RemoteAdds} class batches the fire-and-forget additions of a place-local array by
+ * enclosing finish and destination place (see {@link FinishBatches}).
+ *
+ * <p>The values to add are stored in an array of the element type of the place-local array, so
+ * that a batch of {@code int} additions is sent as an {@code int[]}.
+ *
+ * @param <A> the type of the arrays of values to add
+ */
+final class RemoteAdds<A> {
+
+  /** The maximal number of additions per message. */
+  static final int MAX_SIZE = 4096;
+
+  /** The storage of {@code int} values to add. */
+  static final Deltas<int[]> INTS =
+      new Deltas<>() {
+        @Override
+        public int[] newArray(int n) {
+          return new int[n];
+        }
+
+        @Override
+        public void set(int[] array, int i, long delta) {
+          array[i] = (int) delta;
+        }
+      };
+
+  /** The storage of {@code long} values to add. */
+  static final Deltas<long[]> LONGS =
+      new Deltas<>() {
+        @Override
+        public long[] newArray(int n) {
+          return new long[n];
+        }
+
+        @Override
+        public void set(long[] array, int i, long delta) {
+          array[i] = delta;
+        }
+      };
+
+  /** The pending additions. */
+  private final FinishBatches<Batch<A>> batches;
+
+  /**
+   * Constructs an empty set of batches.
+   *
+   * @param deltas the storage of the values to add
+   * @param sender the function sending a batch of additions
+   */
+  RemoteAdds(Deltas<A> deltas, Sender<A> sender) {
+    batches =
+        new FinishBatches<>(
+            () -> new Batch<>(deltas),
+            batch -> batch.size,
+            MAX_SIZE,
+            (place, batch) ->
+                sender.send(
+                    place, Arrays.copyOf(batch.indices, batch.size), batch.copyOfDeltas()));
+  }
+
+  /**
+   * Queues an addition.
+   *
+   * @param place the destination place
+   * @param index an index into the local array of the destination
+   * @param delta the value to add, representable in the element type
+   */
+  void add(Place place, int index, long delta) {
+    batches.add(place, batch -> batch.add(index, delta));
+  }
+
+  /**
+   * The storage of the values to add.
+   *
+   * @param <A> the type of the arrays of values
+   */
+  interface Deltas<A> {
+
+    /**
+     * Allocates an array of values.
+     *
+     * @param n the length of the array
+     * @return the new array
+     */
+    A newArray(int n);
+
+    /**
+     * Stores a value.
+     *
+     * @param array the array of values
+     * @param i an index into the array
+     * @param delta the value, representable in the element type
+     */
+    void set(A array, int i, long delta);
+  }
+
+  /**
+   * The function sending a batch of additions.
+   *
+   * @param <A> the type of the arrays of values to add
+   */
+  @FunctionalInterface
+  interface Sender<A> {
+
+    /**
+     * Sends a batch of additions.
+     *
+     * @param place the destination place
+     * @param indices the indices into the local array of the destination
+     * @param deltas the values to add
+     */
+    void send(Place place, int[] indices, A deltas);
+  }
+
+  /** The pending additions to a destination place. */
+  private static final class Batch<A> {
+
+    /** The storage of the values. */
+    private final Deltas<A> storage;
+
+    /** The indices of the additions. */
+    int[] indices = new int[16];
+
+    /** The values of the additions. */
+    A deltas;
+
+    /** The number of additions. */
+    int size;
+
+    Batch(Deltas<A> storage) {
+      this.storage = storage;
+      deltas = storage.newArray(16);
+    }
+
+    void add(int index, long delta) {
+      if (size == indices.length) {
+        indices = Arrays.copyOf(indices, 2 * size);
+        deltas = copyOf(deltas, 2 * size);
+      }
+      indices[size] = index;
+      storage.set(deltas, size, delta);
+      size++;
+    }
+
+    A copyOfDeltas() {
+      return copyOf(deltas, size);
+    }
+
+    private A copyOf(A array, int n) {
+      final A copy = storage.newArray(n);
+      System.arraycopy(array, 0, copy, 0, Math.min(n, size));
+      return copy;
+    }
+  }
+}
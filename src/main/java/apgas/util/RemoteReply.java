@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.inlineAsyncAt;
+import static apgas.Constructs.isDead;
+
+import apgas.DeadPlaceException;
+import apgas.Place;
+import apgas.impl.SerializableRunnable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@link RemoteReply} class implements the pending reply of a one-sided remote operation.
+ *
+ * <p>A pending reply is registered in the {@link GlobalID} registry of the requesting place under a
+ * fresh ID. The request carries this ID and the target place answers with a {@link Reply} message
+ * run on the thread receiving it, so that neither side spawns a task nor tracks a finish.
+ */
+final class RemoteReply implements ForkJoinPool.ManagedBlocker {
+
+  /** The delay between two checks of the liveness of the target place in milliseconds. */
+  private static final long POLL = 100;
+
+  /** The ID of this pending reply. */
+  private final long gid;
+
+  /** The place expected to reply. */
+  private final Place place;
+
+  /** Whether the reply was received. */
+  private boolean received;
+
+  /** The payload of the reply. */
+  private Object value;
+
+  /**
+   * Registers a pending reply.
+   *
+   * @param place the place expected to reply
+   */
+  RemoteReply(Place place) {
+    this.place = place;
+    gid = GlobalID.newGid();
+    GlobalID.putHere(gid, this);
+  }
+
+  /**
+   * Returns the ID of this pending reply.
+   *
+   * @return the ID
+   */
+  long gid() {
+    return gid;
+  }
+
+  /**
+   * Waits for the reply.
+   *
+   * @return the payload of the reply
+   * @throws DeadPlaceException if the place expected to reply died
+   */
+  Object await() {
+    while (!isReleasable()) {
+      try {
+        ForkJoinPool.managedBlock(this);
+      } catch (final InterruptedException e) {
+      }
+    }
+    synchronized (this) {
+      if (!received) {
+        GlobalID.removeHere(gid, this);
+        throw new DeadPlaceException(place);
+      }
+    }
+    if (value instanceof RuntimeException) {
+      throw (RuntimeException) value;
+    }
+    return value;
+  }
+
+  @Override
+  public synchronized boolean block() throws InterruptedException {
+    while (!isReleasable()) {
+      wait(POLL);
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized boolean isReleasable() {
+    return received || isDead(place);
+  }
+
+  /**
+   * Sends a reply to a pending reply of another place.
+   *
+   * <p>A {@link RuntimeException} payload is rethrown by {@link #await()}.
+   *
+   * @param gid the ID of the pending reply
+   * @param value the payload
+   */
+  static void reply(long gid, Object value) {
+    inlineAsyncAt(new Place(GlobalID.home(gid)), new Reply(gid, value));
+  }
+
+  /** The message completing a pending reply. */
+  private static final class Reply implements SerializableRunnable {
+
+    private static final long serialVersionUID = -3548316727437106658L;
+
+    /** The ID of the pending reply. */
+    private final long gid;
+
+    /** The payload. */
+    private final Object value;
+
+    private Reply(long gid, Object value) {
+      this.gid = gid;
+      this.value = value;
+    }
+
+    @Override
+    public void run() {
+      final RemoteReply pending = (RemoteReply) GlobalID.removeHere(gid);
+      if (pending != null) {
+        synchronized (pending) {
+          pending.value = value;
+          pending.received = true;
+          pending.notifyAll();
+        }
+      }
+    }
+  }
+}
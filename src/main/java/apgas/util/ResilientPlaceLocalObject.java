@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.at;
+import static apgas.Constructs.here;
+import static apgas.Constructs.immediateAsyncAt;
+import static apgas.Constructs.nextPlace;
+import static apgas.Constructs.places;
+
+import apgas.Place;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ResilientPlaceLocalObject} is a {@link PlaceLocalObject} whose local state is mirrored
+ * in the memory of a buddy place.
+ *
+ * <p>The buddy of a place is the next place as returned by {@link apgas.Constructs#nextPlace}.
+ * Each place takes a snapshot of its state with {@link #snapshot()} and sends it to its buddy with
+ * {@link #backup()} or {@link #asyncBackup()}. When a place is lost, for instance in a place
+ * failure handler or in {@link apgas.impl.elastic.MalleableHandler#postShrink}, the surviving
+ * places retrieve the last snapshot of the lost place with {@link #getBackup(Place)} and
+ * reintegrate it.
+ *
+ * <p>A single failure between two backups is tolerated. The backups must be refreshed after the
+ * set of places changes since the buddy of a place may change too.
+ *
+ * @param <S> the type of the snapshots
+ */
+public abstract class ResilientPlaceLocalObject<S extends Serializable> extends PlaceLocalObject {
+
+  /** The snapshots held by this place for the places it is the buddy of, indexed by place ID. */
+  private final Map<Integer, Backup<S>> backups = new ConcurrentHashMap<>();
+
+  /** The version of the last snapshot taken at this place. */
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Sends a snapshot of the state of this place to its buddy and returns immediately.
+   *
+   * <p>Snapshots arriving out of order are discarded in favor of the most recent one.
+   */
+  public void asyncBackup() {
+    final Backup<S> backup = new Backup<>(here().id, version.incrementAndGet(), snapshot());
+    final ResilientPlaceLocalObject<S> that = this;
+    immediateAsyncAt(nextPlace(here()), () -> that.store(backup));
+  }
+
+  /** Sends a snapshot of the state of this place to its buddy and waits for it to be stored. */
+  public void backup() {
+    final Backup<S> backup = new Backup<>(here().id, version.incrementAndGet(), snapshot());
+    final ResilientPlaceLocalObject<S> that = this;
+    at(nextPlace(here()), () -> that.store(backup));
+  }
+
+  /**
+   * Discards the snapshot of place {@code p} held at the current place if any.
+   *
+   * @param p the place whose snapshot is discarded
+   */
+  public void discardBackup(Place p) {
+    backups.remove(p.id);
+  }
+
+  /**
+   * Retrieves the last snapshot of place {@code p} from the memory of its buddy.
+   *
+   * <p>The buddy is looked up as the next place of {@code p} first, then among all places, since
+   * places may have been added since the last backup.
+   *
+   * @param p the place whose snapshot is retrieved, typically a place that was lost
+   * @return the last snapshot of {@code p} or null if none is found
+   */
+  public S getBackup(Place p) {
+    final ResilientPlaceLocalObject<S> that = this;
+    final int id = p.id;
+    final Place buddy = nextPlace(p);
+    S state = at(buddy, () -> that.getBackupHere(id));
+    if (state != null) {
+      return state;
+    }
+    for (final Place q : places()) {
+      if (q.equals(buddy) || q.equals(p)) {
+        continue;
+      }
+      state = at(q, () -> that.getBackupHere(id));
+      if (state != null) {
+        return state;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the snapshot of place {@code id} held at the current place if any.
+   *
+   * @param id the ID of the place whose snapshot is requested
+   * @return the snapshot or null
+   */
+  private S getBackupHere(int id) {
+    final Backup<S> backup = backups.get(id);
+    return backup == null ? null : backup.state;
+  }
+
+  /**
+   * Returns a snapshot of the state of this object at the current place.
+   *
+   * <p>The snapshot is serialized after this method returns, so it must not share mutable data
+   * with the live state.
+   *
+   * @return the snapshot
+   */
+  protected abstract S snapshot();
+
+  /**
+   * Stores a snapshot at the current place unless a more recent one is already present.
+   *
+   * @param backup the snapshot
+   */
+  private void store(Backup<S> backup) {
+    backups.merge(backup.source, backup, (old, b) -> b.version > old.version ? b : old);
+  }
+
+  /**
+   * A snapshot of the state of a place.
+   *
+   * @param <S> the type of the snapshot
+   */
+  private static final class Backup<S extends Serializable> implements Serializable {
+
+    private static final long serialVersionUID = -6153425326290513245L;
+
+    /** The ID of the place the snapshot was taken at. */
+    private final int source;
+
+    /** The version of the snapshot at its source place. */
+    private final long version;
+
+    /** The snapshot. */
+    private final S state;
+
+    private Backup(int source, long version, S state) {
+      this.source = source;
+      this.version = version;
+      this.state = state;
+    }
+  }
+}
@@ -0,0 +1,763 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.util;
+
+import static apgas.Constructs.asyncAtAll;
+import static apgas.Constructs.finish;
+import static apgas.Constructs.here;
+import static apgas.Constructs.immediateAsyncAt;
+
+import apgas.Constructs;
+import apgas.Place;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@link Team} class implements collective operations over a group of places.
+ *
+ * <p>Collective operations are invoked in SPMD style: every member of the team invokes the same
+ * operations in the same order, typically from a task spawned at each member with {@link
+ * apgas.Constructs#asyncAtAll}. A member must not invoke a collective operation before its previous
+ * one has returned. The members exchange messages with immediate tasks. Broadcasts and reductions
+ * use binomial trees rooted at the given place, barriers use the dissemination algorithm, and
+ * all-reductions and all-gathers use recursive doubling, so that no place receives more than
+ * O(log P) messages per operation except for {@link #alltoall}.
+ *
+ * <p>Reduction operators must be associative and commutative. The primitive array overloads combine
+ * the arrays element-wise with an {@link Operation}.
+ *
+ * <p>After the places change, the team must be rebuilt with {@link #rebuild} from the place that
+ * created it, typically in {@link apgas.impl.elastic.MalleableHandler#postGrow} and {@link
+ * apgas.impl.elastic.MalleableHandler#postShrink}, while no collective operation is in progress.
+ */
+public final class Team extends PlaceLocalObject {
+
+  /** The IDs of the members in rank order. */
+  private int[] ids;
+
+  /** The rank of the current place in the team or -1 if not a member. */
+  private int rank;
+
+  /** The number of collective operations invoked by the current place. */
+  private long count;
+
+  /** The messages received by the current place and not yet consumed. */
+  private final Map<Key, Object> messages = new HashMap<>();
+
+  /**
+   * Initializes the local state of the team.
+   *
+   * @param ids the IDs of the members in rank order
+   */
+  private Team(int[] ids) {
+    reset(ids);
+  }
+
+  /**
+   * Constructs a team over the current places.
+   *
+   * @return the team
+   */
+  public static Team make() {
+    return make(Constructs.places());
+  }
+
+  /**
+   * Constructs a team over the given places.
+   *
+   * @param places a collection of places with no repetition
+   * @return the team
+   */
+  public static Team make(Collection<? extends Place> places) {
+    final int[] ids = ids(places);
+    return PlaceLocalObject.make(places, () -> new Team(ids));
+  }
+
+  private static int[] ids(Collection<? extends Place> places) {
+    return places.stream().mapToInt(p -> p.id).toArray();
+  }
+
+  /**
+   * Updates the members of the team.
+   *
+   * <p>Must be called from the place where the team was created, while no collective operation is
+   * in progress. Places leaving the team that are still alive forget the team, except for the home
+   * place.
+   *
+   * @param places the new members
+   * @throws BadPlaceException if not invoked from the home place of the team
+   */
+  public void rebuild(Collection<? extends Place> places) {
+    if (!id.home.equals(here())) {
+      throw new BadPlaceException();
+    }
+    final int[] oldIds;
+    synchronized (this) {
+      oldIds = ids;
+    }
+    final int[] newIds = ids(places);
+    final GlobalID gid = id;
+    finish(
+        () ->
+            asyncAtAll(
+                places,
+                () -> {
+                  final Team local = (Team) gid.getOrDefaultHere(null);
+                  if (local == null) {
+                    final Team team = new Team(newIds);
+                    team.id = gid;
+                    gid.putHere(team);
+                  } else {
+                    local.reset(newIds);
+                  }
+                }));
+    final List<Place> leaving = new ArrayList<>();
+    for (final Place p : Constructs.places()) {
+      if (p.id != here().id
+          && Arrays.stream(oldIds).anyMatch(i -> i == p.id)
+          && Arrays.stream(newIds).noneMatch(i -> i == p.id)) {
+        leaving.add(p);
+      }
+    }
+    finish(() -> asyncAtAll(leaving, () -> gid.removeHere()));
+    if (Arrays.stream(newIds).noneMatch(i -> i == here().id)) {
+      // the home place keeps the team to rebuild it later
+      reset(newIds);
+    }
+  }
+
+  /**
+   * Resets the local state of the team.
+   *
+   * @param ids the IDs of the members in rank order
+   */
+  private synchronized void reset(int[] ids) {
+    this.ids = ids;
+    rank = -1;
+    for (int r = 0; r < ids.length; r++) {
+      if (ids[r] == here().id) {
+        rank = r;
+      }
+    }
+    count = 0;
+    messages.clear();
+  }
+
+  /**
+   * Returns the members of the team.
+   *
+   * @return the places in rank order
+   */
+  public synchronized List<Place> places() {
+    final List<Place> places = new ArrayList<>(ids.length);
+    for (final int id : ids) {
+      places.add(new Place(id));
+    }
+    return places;
+  }
+
+  /**
+   * Returns the number of members of the team.
+   *
+   * @return the size of the team
+   */
+  public synchronized int size() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the rank of the current place in the team.
+   *
+   * @return the rank or -1 if the current place is not a member
+   */
+  public synchronized int rank() {
+    return rank;
+  }
+
+  /** Waits for all the members to invoke this operation. */
+  public void barrier() {
+    final Context c = start();
+    final int p = c.ids.length;
+    for (int k = 1, round = 0; k < p; k <<= 1, round++) {
+      c.send((c.rank + k) % p, round, Boolean.TRUE);
+      c.receive(round);
+    }
+  }
+
+  /**
+   * Returns the value of the root at all the members.
+   *
+   * @param <T> the type of the value
+   * @param root the member sending the value
+   * @param value the value sent, ignored except at the root
+   * @return the value of the root
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Serializable> T broadcast(Place root, T value) {
+    final Context c = start();
+    final int p = c.ids.length;
+    final int r = c.rankOf(root);
+    final int vr = (c.rank - r + p) % p;
+    T result = value;
+    int mask = 1;
+    while (mask < p) {
+      if ((vr & mask) != 0) {
+        result = (T) c.receive(0);
+        break;
+      }
+      mask <<= 1;
+    }
+    for (mask >>= 1; mask > 0; mask >>= 1) {
+      if (vr + mask < p) {
+        c.send((vr + mask + r) % p, 0, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Combines the values of all the members at the root.
+   *
+   * @param <T> the type of the values
+   * @param root the member receiving the result
+   * @param value the value of the current place
+   * @param op the reduction operator
+   * @return the combined values at the root, null elsewhere
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Serializable> T reduce(Place root, T value, BinaryOperator<T> op) {
+    final Context c = start();
+    final int p = c.ids.length;
+    final int r = c.rankOf(root);
+    final int vr = (c.rank - r + p) % p;
+    T result = value;
+    for (int mask = 1; mask < p; mask <<= 1) {
+      if ((vr & mask) != 0) {
+        c.send(((vr & ~mask) + r) % p, mask, result);
+        return null;
+      }
+      if ((vr | mask) < p) {
+        result = op.apply(result, (T) c.receive(mask));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Combines the values of all the members at the root element-wise.
+   *
+   * @param root the member receiving the result
+   * @param values the values of the current place
+   * @param op the reduction operator
+   * @return the combined values at the root, null elsewhere
+   */
+  public double[] reduce(Place root, double[] values, Operation op) {
+    return reduce(root, values, doubles(op));
+  }
+
+  /**
+   * Combines the values of all the members at the root element-wise.
+   *
+   * @param root the member receiving the result
+   * @param values the values of the current place
+   * @param op the reduction operator
+   * @return the combined values at the root, null elsewhere
+   */
+  public long[] reduce(Place root, long[] values, Operation op) {
+    return reduce(root, values, longs(op));
+  }
+
+  /**
+   * Combines the values of all the members at all the members.
+   *
+   * @param <T> the type of the values
+   * @param value the value of the current place
+   * @param op the reduction operator
+   * @return the combined values
+   */
+  public <T extends Serializable> T allreduce(T value, BinaryOperator<T> op) {
+    return allreduce(start(), value, op);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Serializable> T allreduce(Context c, T value, BinaryOperator<T> op) {
+    final int p = c.ids.length;
+    final int rank = c.rank;
+    final int pof2 = Integer.highestOneBit(p);
+    final int rem = p - pof2;
+    T result = value;
+    // fold the first 2 * rem members in pairs to get a power of two
+    int vr = rank - rem;
+    if (rank < 2 * rem) {
+      if (rank % 2 == 0) {
+        c.send(rank + 1, -1, result);
+        vr = -1;
+      } else {
+        result = op.apply((T) c.receive(-1), result);
+        vr = rank / 2;
+      }
+    }
+    if (vr >= 0) {
+      for (int mask = 1; mask < pof2; mask <<= 1) {
+        final int vpeer = vr ^ mask;
+        c.send(vpeer < rem ? 2 * vpeer + 1 : vpeer + rem, mask, result);
+        final T other = (T) c.receive(mask);
+        result = vpeer < vr ? op.apply(other, result) : op.apply(result, other);
+      }
+    }
+    if (rank < 2 * rem) {
+      if (rank % 2 == 0) {
+        result = (T) c.receive(-2);
+      } else {
+        c.send(rank - 1, -2, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Combines the values of all the members at all the members element-wise.
+   *
+   * @param values the values of the current place
+   * @param op the reduction operator
+   * @return the combined values
+   */
+  public double[] allreduce(double[] values, Operation op) {
+    return allreduce(values, doubles(op));
+  }
+
+  /**
+   * Combines the values of all the members at all the members element-wise.
+   *
+   * @param values the values of the current place
+   * @param op the reduction operator
+   * @return the combined values
+   */
+  public long[] allreduce(long[] values, Operation op) {
+    return allreduce(values, longs(op));
+  }
+
+  /**
+   * Combines the values of all the members at all the members.
+   *
+   * @param value the value of the current place
+   * @param op the reduction operator
+   * @return the combined values
+   */
+  public double allreduce(double value, Operation op) {
+    return allreduce(new double[] {value}, op)[0];
+  }
+
+  /**
+   * Combines the values of all the members at all the members.
+   *
+   * @param value the value of the current place
+   * @param op the reduction operator
+   * @return the combined values
+   */
+  public long allreduce(long value, Operation op) {
+    return allreduce(new long[] {value}, op)[0];
+  }
+
+  /**
+   * Collects the values of all the members at all the members.
+   *
+   * @param <T> the type of the values
+   * @param value the value of the current place
+   * @return the values of the members in rank order
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Serializable> List<T> allgather(T value) {
+    return (List<T>) (List<?>) Arrays.asList(gather(value));
+  }
+
+  /**
+   * Concatenates the values of all the members at all the members.
+   *
+   * @param values the values of the current place, of the same length at all the members
+   * @return the values of the members in rank order
+   */
+  public double[] allgather(double[] values) {
+    final Object[] all = gather(values);
+    final double[] result = new double[values.length * all.length];
+    for (int r = 0; r < all.length; r++) {
+      System.arraycopy(all[r], 0, result, r * values.length, values.length);
+    }
+    return result;
+  }
+
+  /**
+   * Concatenates the values of all the members at all the members.
+   *
+   * @param values the values of the current place, of the same length at all the members
+   * @return the values of the members in rank order
+   */
+  public long[] allgather(long[] values) {
+    final Object[] all = gather(values);
+    final long[] result = new long[values.length * all.length];
+    for (int r = 0; r < all.length; r++) {
+      System.arraycopy(all[r], 0, result, r * values.length, values.length);
+    }
+    return result;
+  }
+
+  /**
+   * Collects the values of all the members at all the members by all-reducing arrays with one slot
+   * per member.
+   *
+   * @param value the value of the current place
+   * @return the values of the members in rank order
+   */
+  private Object[] gather(Object value) {
+    final Context c = start();
+    final Object[] slots = new Object[c.ids.length];
+    slots[c.rank] = value;
+    return allreduce(c, slots, Team::merge);
+  }
+
+  /**
+   * Sends a distinct value from each member to each member.
+   *
+   * @param <T> the type of the values
+   * @param values the values sent by the current place to each member in rank order
+   * @return the values received by the current place from each member in rank order
+   */
+  public <T extends Serializable> List<T> alltoall(List<? extends T> values) {
+    return alltoall(start(), values);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Serializable> List<T> alltoall(Context c, List<? extends T> values) {
+    final int p = c.ids.length;
+    final int rank = c.rank;
+    if (values.size() != p) {
+      throw new IllegalArgumentException("expected " + p + " values, got " + values.size());
+    }
+    final List<T> result = new ArrayList<>(values);
+    for (int i = 1; i < p; i++) {
+      c.send((rank + i) % p, rank, values.get((rank + i) % p));
+    }
+    for (int i = 1; i < p; i++) {
+      final int source = (rank - i + p) % p;
+      result.set(source, (T) c.receive(source));
+    }
+    return result;
+  }
+
+  /**
+   * Sends a distinct block of values from each member to each member.
+   *
+   * @param values the blocks sent by the current place to each member in rank order, of the same
+   *     length
+   * @return the blocks received by the current place from each member in rank order
+   */
+  public double[] alltoall(double[] values) {
+    final Context c = start();
+    final int p = c.ids.length;
+    final int n = blockLength(values.length, p);
+    final List<double[]> blocks = new ArrayList<>(p);
+    for (int r = 0; r < p; r++) {
+      blocks.add(Arrays.copyOfRange(values, r * n, (r + 1) * n));
+    }
+    final List<double[]> received = alltoall(c, blocks);
+    final double[] result = new double[values.length];
+    for (int r = 0; r < p; r++) {
+      System.arraycopy(received.get(r), 0, result, r * n, n);
+    }
+    return result;
+  }
+
+  /**
+   * Sends a distinct block of values from each member to each member.
+   *
+   * @param values the blocks sent by the current place to each member in rank order, of the same
+   *     length
+   * @return the blocks received by the current place from each member in rank order
+   */
+  public long[] alltoall(long[] values) {
+    final Context c = start();
+    final int p = c.ids.length;
+    final int n = blockLength(values.length, p);
+    final List<long[]> blocks = new ArrayList<>(p);
+    for (int r = 0; r < p; r++) {
+      blocks.add(Arrays.copyOfRange(values, r * n, (r + 1) * n));
+    }
+    final List<long[]> received = alltoall(c, blocks);
+    final long[] result = new long[values.length];
+    for (int r = 0; r < p; r++) {
+      System.arraycopy(received.get(r), 0, result, r * n, n);
+    }
+    return result;
+  }
+
+  static int blockLength(int length, int p) {
+    if (length % p != 0) {
+      throw new IllegalArgumentException(
+          "the length " + length + " is not a multiple of the team size " + p);
+    }
+    return length / p;
+  }
+
+  static BinaryOperator<double[]> doubles(Operation op) {
+    return (a, b) -> {
+      final double[] c = new double[a.length];
+      for (int i = 0; i < c.length; i++) {
+        c[i] = op.apply(a[i], b[i]);
+      }
+      return c;
+    };
+  }
+
+  static BinaryOperator<long[]> longs(Operation op) {
+    return (a, b) -> {
+      final long[] c = new long[a.length];
+      for (int i = 0; i < c.length; i++) {
+        c[i] = op.apply(a[i], b[i]);
+      }
+      return c;
+    };
+  }
+
+  static Object[] merge(Object[] a, Object[] b) {
+    final Object[] c = a.clone();
+    for (int i = 0; i < c.length; i++) {
+      if (c[i] == null) {
+        c[i] = b[i];
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Starts a collective operation at the current place.
+   *
+   * <p>The operation uses the members and rank of the current place at this time, even if the team
+   * is rebuilt concurrently.
+   *
+   * @return the context of the operation
+   * @throws BadPlaceException if the current place is not a member of the team
+   */
+  private synchronized Context start() {
+    if (rank < 0) {
+      throw new BadPlaceException();
+    }
+    return new Context(ids, rank, count++);
+  }
+
+  /**
+   * Stores a message received by the current place.
+   *
+   * @param key the operation and tag of the message
+   * @param value the payload
+   */
+  private synchronized void deliver(Key key, Object value) {
+    messages.put(key, value);
+    notifyAll();
+  }
+
+  /** The reduction operators of the primitive collective operations. */
+  public enum Operation {
+    /** The sum. */
+    SUM {
+      @Override
+      long apply(long a, long b) {
+        return a + b;
+      }
+
+      @Override
+      double apply(double a, double b) {
+        return a + b;
+      }
+    },
+
+    /** The minimum. */
+    MIN {
+      @Override
+      long apply(long a, long b) {
+        return Math.min(a, b);
+      }
+
+      @Override
+      double apply(double a, double b) {
+        return Math.min(a, b);
+      }
+    },
+
+    /** The maximum. */
+    MAX {
+      @Override
+      long apply(long a, long b) {
+        return Math.max(a, b);
+      }
+
+      @Override
+      double apply(double a, double b) {
+        return Math.max(a, b);
+      }
+    };
+
+    /**
+     * Applies this operator.
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @return the result
+     */
+    abstract long apply(long a, long b);
+
+    /**
+     * Applies this operator.
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @return the result
+     */
+    abstract double apply(double a, double b);
+  }
+
+  /** The members, rank of the current place, and sequence number of a collective operation. */
+  private final class Context {
+
+    /** The IDs of the members in rank order. */
+    private final int[] ids;
+
+    /** The rank of the current place. */
+    private final int rank;
+
+    /** The sequence number of the operation. */
+    private final long seq;
+
+    private Context(int[] ids, int rank, long seq) {
+      this.ids = ids;
+      this.rank = rank;
+      this.seq = seq;
+    }
+
+    /**
+     * Returns the rank of a member.
+     *
+     * @param place a place
+     * @return the rank of the place
+     * @throws BadPlaceException if the place is not a member of the team
+     */
+    private int rankOf(Place place) {
+      for (int r = 0; r < ids.length; r++) {
+        if (ids[r] == place.id) {
+          return r;
+        }
+      }
+      throw new BadPlaceException();
+    }
+
+    /**
+     * Sends a message to a member.
+     *
+     * @param r the rank of the destination
+     * @param tag the tag of the message within the operation
+     * @param value the payload
+     */
+    private void send(int r, int tag, Serializable value) {
+      final Team that = Team.this;
+      final Key key = new Key(seq, tag);
+      immediateAsyncAt(new Place(ids[r]), () -> that.deliver(key, value));
+    }
+
+    /**
+     * Waits for a message.
+     *
+     * @param tag the tag of the message within the operation
+     * @return the payload
+     */
+    private Object receive(int tag) {
+      final Receiver receiver = new Receiver(new Key(seq, tag));
+      while (!receiver.isReleasable()) {
+        try {
+          ForkJoinPool.managedBlock(receiver);
+        } catch (final InterruptedException e) {
+        }
+      }
+      return receiver.value;
+    }
+  }
+
+  /** Identifies a message within the messages of a team. */
+  private static final class Key implements Serializable {
+
+    private static final long serialVersionUID = -4309826409823367745L;
+
+    /** The sequence number of the operation. */
+    private final long seq;
+
+    /** The tag of the message within the operation. */
+    private final int tag;
+
+    private Key(long seq, int tag) {
+      this.seq = seq;
+      this.tag = tag;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      return that instanceof Key && seq == ((Key) that).seq && tag == ((Key) that).tag;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(seq) * 31 + tag;
+    }
+  }
+
+  /** Waits for a message. */
+  private final class Receiver implements ForkJoinPool.ManagedBlocker {
+
+    /** The message to wait for. */
+    private final Key key;
+
+    /** Whether the message was received. */
+    private boolean received;
+
+    /** The payload of the message. */
+    private Object value;
+
+    private Receiver(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      synchronized (Team.this) {
+        while (!isReleasable()) {
+          Team.this.wait();
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      synchronized (Team.this) {
+        if (!received && messages.containsKey(key)) {
+          value = messages.remove(key);
+          received = true;
+        }
+        return received;
+      }
+    }
+  }
+}
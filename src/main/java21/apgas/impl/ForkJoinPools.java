@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@link ForkJoinPools} class changes the parallelism of a running pool.
+ *
+ * <p>This version is used on Java 21 and greater.
+ */
+final class ForkJoinPools {
+
+  /** Prevents instantiation. */
+  private ForkJoinPools() {}
+
+  /**
+   * Returns true if the parallelism of a running pool can be changed.
+   *
+   * @return true
+   */
+  static boolean canResize() {
+    return true;
+  }
+
+  /**
+   * Changes the target parallelism of a pool.
+   *
+   * @param pool the pool
+   * @param parallelism the new parallelism
+   */
+  static void setParallelism(ForkJoinPool pool, int parallelism) {
+    pool.setParallelism(parallelism);
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+
+package apgas.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@link VirtualThreads} class gives access to virtual threads.
+ *
+ * <p>This version is used on Java 21 and greater.
+ */
+final class VirtualThreads {
+
+  /** Prevents instantiation. */
+  private VirtualThreads() {}
+
+  /**
+   * Returns true if this JVM supports virtual threads.
+   *
+   * @return true
+   */
+  static boolean isSupported() {
+    return true;
+  }
+
+  /**
+   * Returns true if the given thread is a virtual thread.
+   *
+   * @param thread a thread
+   * @return true if the thread is virtual
+   */
+  static boolean isVirtual(Thread thread) {
+    return thread.isVirtual();
+  }
+
+  /**
+   * Returns an executor starting a new virtual thread for each task.
+   *
+   * @return the executor
+   */
+  static ExecutorService newExecutor() {
+    return Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("apgas-virtual-", 0).factory());
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FinishTests {
+
+  /** A finish that becomes releasable when told, and never wakes up a parked thread. */
+  private static final class PollingFinish implements Finish {
+
+    private volatile boolean done;
+
+    @Override
+    public void addSuppressed(Throwable exception) {}
+
+    @Override
+    public boolean block() {
+      return done;
+    }
+
+    @Override
+    public List<Throwable> exceptions() {
+      return null;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
+    }
+
+    @Override
+    public void spawn(int p) {}
+
+    @Override
+    public void submit(int p) {}
+
+    @Override
+    public void tell() {
+      done = true;
+    }
+
+    @Override
+    public void unspawn(int p) {}
+  }
+
+  @Test
+  @DisplayName("Testing the default park returning once the finish is releasable")
+  void shouldReturnFromParkWithoutUnpark() throws InterruptedException {
+    final PollingFinish finish = new PollingFinish();
+    final Thread waiter = new Thread(finish::park);
+    waiter.start();
+    waiter.join(50);
+    assertFalse(finish.isReleasable());
+    finish.tell();
+    waiter.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(waiter.isAlive(), "park should poll the finish.");
+  }
+}
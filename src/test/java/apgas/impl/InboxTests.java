@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class InboxTests {
+
+  private ForkJoinPool pool;
+
+  private Inbox inbox;
+
+  @BeforeEach
+  void setUp() {
+    pool = new ForkJoinPool(2);
+    inbox = new Inbox();
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Testing inbox holding the tasks received before the pool is started")
+  void shouldRunTasksReceivedBeforeStart() throws InterruptedException {
+    final AtomicInteger runs = new AtomicInteger();
+    for (int i = 0; i < 10; i++) {
+      inbox.add(ForkJoinTask.adapt(runs::incrementAndGet));
+    }
+    assertTrue(pool.awaitQuiescence(100, TimeUnit.MILLISECONDS));
+    assertEquals(0, runs.get());
+    inbox.start(pool);
+    for (int i = 0; i < 10; i++) {
+      inbox.add(ForkJoinTask.adapt(runs::incrementAndGet));
+    }
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (runs.get() < 20 && System.nanoTime() < deadline) {
+      pool.awaitQuiescence(10, TimeUnit.MILLISECONDS);
+    }
+    assertEquals(20, runs.get());
+  }
+}
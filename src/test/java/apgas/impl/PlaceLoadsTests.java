@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PlaceLoadsTests {
+
+  /** An idle pool with two workers, so that the current place takes two tasks before spilling. */
+  private ForkJoinPool pool;
+
+  private PlaceLoads loads;
+
+  @BeforeEach
+  void setUp() {
+    pool = new ForkJoinPool(2);
+    loads = new PlaceLoads(() -> 0, pool);
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Testing assign keeping tasks local when no remote load is known")
+  void shouldKeepTasksLocalWithoutRemoteLoads() {
+    assertArrayEquals(new int[] {0, 0, 0, 0}, loads.assign(4));
+  }
+
+  @Test
+  @DisplayName("Testing assign keeping tasks local below the parallelism threshold")
+  void shouldKeepTasksLocalBelowThreshold() {
+    loads.update(1, 0);
+    assertArrayEquals(new int[] {0, 0}, loads.assign(2));
+  }
+
+  @Test
+  @DisplayName("Testing assign spilling to the least loaded place above the threshold")
+  void shouldSpillToLeastLoadedPlace() {
+    loads.update(1, 0);
+    loads.update(2, 5);
+    // two local tasks reach the threshold, then place 1 takes tasks until it is as loaded as here
+    assertArrayEquals(new int[] {0, 0, 1, 1, 0}, loads.assign(5));
+    // the tasks sent to place 1 count until it reports its load again
+    assertArrayEquals(new int[] {0, 0, 0}, loads.assign(3));
+    loads.update(1, 0);
+    assertArrayEquals(new int[] {0, 0, 1}, loads.assign(3));
+  }
+
+  @Test
+  @DisplayName("Testing assign ignoring the current place and forgotten places")
+  void shouldIgnoreHereAndRemovedPlaces() {
+    loads.update(0, 0);
+    loads.update(3, 0);
+    loads.remove(3);
+    assertArrayEquals(new int[] {0, 0, 0}, loads.assign(3));
+  }
+}
@@ -13,15 +13,48 @@ package apgas.runtime;
 import static apgas.Constructs.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import apgas.Configuration;
 import apgas.Constructs;
 import apgas.GlobalRuntime;
+import apgas.MultipleException;
 import apgas.Place;
+import apgas.Priority;
+import apgas.SerializableJob;
+import apgas.SerializableLongConsumer;
+import apgas.glb.GlobalLoadBalancer;
+import apgas.glb.TaskBag;
+import apgas.glb.TaskQueue;
+import apgas.impl.GlobalRuntimeImpl;
+import apgas.util.BadPlaceException;
+import apgas.util.Broadcast;
+import apgas.util.CachedGlobalRef;
+import apgas.util.DistArray;
+import apgas.util.DistHashMap;
+import apgas.util.DistLongArray;
+import apgas.util.Distribution;
+import apgas.util.GlobalID;
 import apgas.util.GlobalRef;
+import apgas.util.PlaceLocalIntArray;
+import apgas.util.PlaceLocalLongArray;
+import apgas.util.PlaceLocalLongBuffer;
+import apgas.util.PlaceLocalObject;
+import apgas.util.ResilientPlaceLocalObject;
+import apgas.util.Team;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -293,4 +326,887 @@ public class APGASCoreTests {
                 }));
     assertEquals(3, testCounter.get(), "testCounter should be incremented 3 time by asyncs.");
   }
+
+  @Test
+  @DisplayName("Testing asyncAtAll reaching every place once")
+  void shouldRunAsyncAtAllOncePerPlace() {
+    final AtomicInteger testCounter = new AtomicInteger(0);
+    final GlobalRef<AtomicInteger> globalTestCounter = new GlobalRef<>(testCounter);
+    finish(
+        () ->
+            asyncAtAll(
+                places(),
+                () ->
+                    asyncAt(
+                        globalTestCounter.home(),
+                        () -> globalTestCounter.get().incrementAndGet())));
+    assertEquals(
+        places().size(), testCounter.get(), "testCounter should be incremented once per place.");
+  }
+
+  @Test
+  @DisplayName("Testing immediateAsyncAtAll forwarding past a failing task")
+  void shouldForwardImmediateAsyncAtAllWhenTaskFails() throws InterruptedException {
+    final AtomicInteger testCounter = new AtomicInteger(0);
+    final GlobalRef<AtomicInteger> globalTestCounter = new GlobalRef<>(testCounter);
+    final Place home = here();
+    GlobalRuntimeImpl.getRuntime()
+        .immediateAsyncAtAll(
+            places(),
+            () -> {
+              GlobalRuntimeImpl.getRuntime()
+                  .immediateAsyncAt(home, () -> globalTestCounter.get().incrementAndGet());
+              throw new RuntimeException("expected failure");
+            });
+    final long deadline = System.currentTimeMillis() + 10000;
+    while (testCounter.get() < places().size() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(
+        places().size(), testCounter.get(), "every place should run the task despite failures.");
+  }
+
+  @Test
+  @DisplayName("Testing off-heap place local arrays before and after drop")
+  void shouldCopyOffHeapArraysAndRejectAccessAfterDrop() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final PlaceLocalLongBuffer buffer = PlaceLocalLongBuffer.make(places(), 16);
+    for (int i = 0; i < 16; i++) {
+      buffer.set(i, 100 + i);
+    }
+    finish(() -> buffer.copyTo(4, testPlace, 0, 8));
+    final long[] copied =
+        at(
+            testPlace,
+            () -> {
+              final long[] values = new long[8];
+              buffer.get(0, values, 0, 8);
+              return values;
+            });
+    assertEquals(104, copied[0]);
+    assertEquals(111, copied[7]);
+    buffer.drop();
+    assertThrows(IllegalStateException.class, () -> buffer.get(0));
+    assertThrows(IllegalStateException.class, () -> buffer.set(15, 1));
+  }
+
+  @Test
+  @DisplayName("Testing nested Finish in tasks receiving asyncAt at their own place")
+  void shouldWaitInNestedFinishWhileReceivingTasks() {
+    final AtomicInteger testCounter = new AtomicInteger(0);
+    finish(
+        () -> {
+          for (int i = 0; i < 4; i++) {
+            async(
+                () -> {
+                  for (int r = 0; r < 50; r++) {
+                    finish(() -> asyncAt(here(), testCounter::incrementAndGet));
+                  }
+                });
+          }
+        });
+    assertEquals(200, testCounter.get(), "testCounter should be incremented 200 times.");
+  }
+
+  @Test
+  @DisplayName("Testing addAt from concurrent finishes to the same place")
+  void shouldApplyRemoteAddsWhenEachFinishCompletes() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final PlaceLocalLongArray array = PlaceLocalLongArray.make(places(), 2);
+    final int rounds = 50;
+    final int adds = 100;
+    final AtomicInteger failures = new AtomicInteger(0);
+    finish(
+        () -> {
+          for (int i = 0; i < 2; i++) {
+            final int index = i;
+            async(
+                () -> {
+                  for (int r = 1; r <= rounds; r++) {
+                    finish(
+                        () -> {
+                          for (int k = 0; k < adds; k++) {
+                            array.addAt(testPlace, index, 1);
+                          }
+                        });
+                    if (at(testPlace, () -> array.get(index)) != (long) r * adds) {
+                      failures.incrementAndGet();
+                    }
+                  }
+                });
+          }
+        });
+    assertEquals(0, failures.get(), "additions should be applied when their finish completes.");
+    assertEquals((long) rounds * adds, at(testPlace, () -> array.get(0)));
+    assertEquals((long) rounds * adds, at(testPlace, () -> array.get(1)));
+  }
+
+  @Test
+  @DisplayName("Testing Team allreduce, allgather and alltoall at all places")
+  void shouldRunCollectiveOperationsAtAllPlaces() {
+    final Team team = Team.make();
+    final int p = places().size();
+    final AtomicInteger failures = new AtomicInteger(0);
+    final GlobalRef<AtomicInteger> globalFailures = new GlobalRef<>(failures);
+    finish(
+        () ->
+            asyncAtAll(
+                places(),
+                () -> {
+                  final int rank = team.rank();
+                  boolean ok = true;
+                  // allreduce
+                  ok &= team.allreduce((long) rank + 1, Team.Operation.SUM) == p * (p + 1) / 2;
+                  ok &= team.allreduce((double) rank, Team.Operation.MAX) == p - 1;
+                  final long[] sums = team.allreduce(new long[] {1, rank}, Team.Operation.SUM);
+                  ok &= sums[0] == p && sums[1] == (long) p * (p - 1) / 2;
+                  // allgather
+                  final List<Integer> gathered = team.allgather(rank * 10);
+                  for (int r = 0; r < p; r++) {
+                    ok &= gathered.get(r) == r * 10;
+                  }
+                  // alltoall: block r sent to member r holds 100 * sender + r
+                  final long[] blocks = new long[2 * p];
+                  for (int r = 0; r < p; r++) {
+                    blocks[2 * r] = 100L * rank + r;
+                    blocks[2 * r + 1] = -(100L * rank + r);
+                  }
+                  final long[] received = team.alltoall(blocks);
+                  for (int r = 0; r < p; r++) {
+                    ok &= received[2 * r] == 100L * r + rank;
+                    ok &= received[2 * r + 1] == -(100L * r + rank);
+                  }
+                  team.barrier();
+                  ok &= team.broadcast(place(0), rank == 0 ? "root" : null).equals("root");
+                  if (!ok) {
+                    asyncAt(globalFailures.home(), () -> globalFailures.get().incrementAndGet());
+                  }
+                }));
+    assertEquals(0, failures.get(), "collective operations should agree at all places.");
+  }
+
+  @Test
+  @DisplayName("Testing DistHashMap merge from concurrent finishes to the same owner")
+  void shouldApplyMergesWhenEachFinishCompletes() {
+    final DistHashMap<String, Long> map = DistHashMap.make();
+    // two keys owned by the same other place
+    final List<String> keys = new ArrayList<>();
+    Place owner = null;
+    for (int i = 0; keys.size() < 2; i++) {
+      final String key = "key" + i;
+      final Place p = map.owner(key);
+      if (!p.equals(here()) && (owner == null || owner.equals(p))) {
+        owner = p;
+        keys.add(key);
+      }
+    }
+    final int rounds = 50;
+    final int merges = 100;
+    final AtomicInteger failures = new AtomicInteger(0);
+    finish(
+        () -> {
+          for (final String key : keys) {
+            async(
+                () -> {
+                  for (int r = 1; r <= rounds; r++) {
+                    finish(
+                        () -> {
+                          for (int k = 0; k < merges; k++) {
+                            map.merge(key, 1L, Long::sum);
+                          }
+                        });
+                    if (map.get(key) != (long) r * merges) {
+                      failures.incrementAndGet();
+                    }
+                  }
+                });
+          }
+        });
+    assertEquals(0, failures.get(), "merges should be applied when their finish completes.");
+    assertEquals((long) rounds * merges, map.get(keys.get(0)));
+    assertEquals((long) rounds * merges, map.get(keys.get(1)));
+  }
+
+  @Test
+  @DisplayName("Testing the home of new global IDs once the local counter is negative")
+  void shouldDecodeHomeOfNewGidWithNegativeCounter() throws ReflectiveOperationException {
+    final Field field = GlobalID.class.getDeclaredField("count");
+    field.setAccessible(true);
+    final AtomicInteger count = (AtomicInteger) field.get(null);
+    final int saved = count.get();
+    try {
+      // only issue local IDs never issued before
+      for (final int start : new int[] {Integer.MIN_VALUE, -2}) {
+        count.set(start);
+        for (int i = 0; i < 2; i++) {
+          assertEquals(here().id, GlobalID.home(GlobalID.newGid()));
+        }
+      }
+    } finally {
+      count.set(saved);
+    }
+  }
+
+  /** A place local object counting its initializations at each place. */
+  static final class LazyCounter extends PlaceLocalObject {
+
+    static final AtomicInteger initializations = new AtomicInteger(0);
+
+    final AtomicInteger value = new AtomicInteger(0);
+
+    LazyCounter() {
+      initializations.incrementAndGet();
+    }
+  }
+
+  @Test
+  @DisplayName("Testing lazily-initialized place local objects")
+  void shouldInitializeLazyObjectOnFirstUseAtEachPlace() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final int before = LazyCounter.initializations.get();
+    final LazyCounter counter = PlaceLocalObject.makeLazy(LazyCounter::new);
+    assertEquals(before + 1, LazyCounter.initializations.get(), "initialized at home");
+    final int remoteBefore = at(testPlace, () -> LazyCounter.initializations.get());
+    finish(
+        () -> {
+          for (int i = 0; i < 8; i++) {
+            asyncAt(testPlace, () -> counter.value.incrementAndGet());
+          }
+        });
+    assertEquals(8, at(testPlace, () -> counter.value.get()));
+    assertEquals(
+        remoteBefore + 1,
+        at(testPlace, () -> LazyCounter.initializations.get()),
+        "initialized once at the remote place");
+    assertEquals(0, counter.value.get(), "the home object should be distinct");
+    assertThrows(
+        RuntimeException.class,
+        () ->
+            PlaceLocalObject.makeLazy(
+                () -> {
+                  throw new Exception("expected failure");
+                }));
+  }
+
+  @Test
+  @DisplayName("Testing one-sided getRemote and putRemote on place local arrays")
+  void shouldGetAndPutRemoteArrayElements() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final Place otherPlace = testPlaces.get(1);
+    final PlaceLocalIntArray ints = PlaceLocalIntArray.make(places(), 8);
+    ints.putRemote(testPlace, new int[] {1, 6}, new int[] {10, 60});
+    assertEquals(10, at(testPlace, () -> ints.get(1)));
+    assertEquals(60, at(testPlace, () -> ints.get(6)));
+    final int[] values = at(otherPlace, () -> ints.getRemote(testPlace, new int[] {6, 1, 0}));
+    assertEquals(60, values[0]);
+    assertEquals(10, values[1]);
+    assertEquals(0, values[2]);
+    final PlaceLocalLongArray longs = PlaceLocalLongArray.make(places(), 8);
+    longs.putRemote(testPlace, new int[] {3}, new long[] {Long.MAX_VALUE});
+    assertEquals(Long.MAX_VALUE, longs.getRemote(testPlace, new int[] {3})[0]);
+    assertThrows(
+        ArrayIndexOutOfBoundsException.class, () -> ints.getRemote(testPlace, new int[] {8}));
+    assertThrows(
+        ArrayIndexOutOfBoundsException.class,
+        () -> longs.putRemote(testPlace, new int[] {-1}, new long[] {1}));
+  }
+
+  @Test
+  @DisplayName("Testing CachedGlobalRef caching, write-through and invalidation")
+  void shouldCacheGlobalRefUntilSetOrInvalidate() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final int[] value = {1};
+    final CachedGlobalRef<int[]> ref = new CachedGlobalRef<>(value);
+    assertEquals(here(), ref.home());
+    assertEquals(1, at(testPlace, () -> ref.get()[0]));
+    value[0] = 2;
+    assertEquals(1, at(testPlace, () -> ref.get()[0]), "the remote read should hit the cache");
+    ref.invalidate();
+    assertEquals(2, at(testPlace, () -> ref.get()[0]), "invalidate should force a refetch");
+    ref.set(new int[] {3});
+    assertEquals(3, at(testPlace, () -> ref.get()[0]), "set should update the remote copies");
+    finish(() -> asyncAt(testPlace, () -> ref.set(new int[] {4})));
+    assertEquals(4, ref.get()[0], "a remote set should write through to the home place");
+    assertEquals(4, at(testPlace, () -> ref.get()[0]));
+    ref.free();
+  }
+
+  @Test
+  @DisplayName("Testing high priority asyncAt ahead of a backlog of normal tasks")
+  void shouldRunHighPriorityTaskBeforeNormalBacklog() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final Place home = here();
+    // index 0 records whether the urgent task ran on top of a normal task (2) or not (1), index 1
+    // that a normal task gave up waiting for it
+    final PlaceLocalLongArray progress = PlaceLocalLongArray.make(places(), 2);
+    finish(
+        () ->
+            asyncAt(
+                testPlace,
+                () -> {
+                  // each worker always has local normal tasks to run until the urgent task runs
+                  final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                  for (int i = 0; i < 20; i++) {
+                    async(() -> requeueUntilUrgent(progress, deadline));
+                  }
+                  // a task sent to the current place would be forked locally, so bounce it
+                  asyncAt(
+                      home,
+                      () ->
+                          asyncAt(
+                              testPlace,
+                              Priority.HIGH,
+                              () -> progress.set(0, inNormalTask.get() ? 2 : 1)));
+                }));
+    final long urgent = at(testPlace, () -> progress.get(0));
+    assertTrue(urgent != 0, "the high priority task should run.");
+    assertEquals(1, urgent, "the high priority task should not run inside a normal task.");
+    assertEquals(
+        0,
+        at(testPlace, () -> progress.get(1)),
+        "the high priority task should not wait for the normal tasks.");
+  }
+
+  /** Whether the current thread runs a task of {@link #requeueUntilUrgent}. */
+  private static final ThreadLocal<Boolean> inNormalTask = ThreadLocal.withInitial(() -> false);
+
+  /**
+   * Spawns a copy of the current task until the high priority task of {@link
+   * #shouldRunHighPriorityTaskBeforeNormalBacklog} runs.
+   */
+  private static void requeueUntilUrgent(PlaceLocalLongArray progress, long deadline)
+      throws InterruptedException {
+    if (progress.get(0) != 0) {
+      return;
+    }
+    if (System.nanoTime() > deadline) {
+      progress.set(1, 1);
+      return;
+    }
+    inNormalTask.set(true);
+    try {
+      // the urgent task likely arrives in the meantime, then the body of the finish runs inline on
+      // top of this task
+      Thread.sleep(1);
+      finish(() -> {});
+    } finally {
+      inNormalTask.set(false);
+    }
+    async(() -> requeueUntilUrgent(progress, deadline));
+  }
+
+  @Test
+  @DisplayName("Testing forEach running every index once at the current place")
+  void shouldRunEachIndexOnceInLocalForEach() {
+    final int n = 10_000;
+    final AtomicIntegerArray runs = new AtomicIntegerArray(n);
+    forEach(0, n, i -> runs.incrementAndGet((int) i));
+    for (int i = 0; i < n; i++) {
+      assertEquals(1, runs.get(i), "index " + i + " should run once.");
+    }
+    forEach(5, 5, i -> runs.incrementAndGet((int) i));
+    assertEquals(1, runs.get(5), "an empty range should run nothing.");
+    final MultipleException e =
+        assertThrows(
+            MultipleException.class,
+            () ->
+                forEach(
+                    0,
+                    n,
+                    i -> {
+                      if (i == 42) {
+                        throw new IllegalStateException("expected failure");
+                      }
+                    }));
+    assertEquals(1, e.getSuppressed().length);
+    assertTrue(e.getSuppressed()[0] instanceof IllegalStateException);
+  }
+
+  @Test
+  @DisplayName("Testing forEach running every index once across all places")
+  void shouldRunEachIndexOnceInDistributedForEach() {
+    final int n = 10_000;
+    final PlaceLocalIntArray runs = PlaceLocalIntArray.make(places(), n);
+    forEach(places(), 0, n, i -> runs.addAt(here(), (int) i, 1));
+    final int[] total = new int[n];
+    for (final Place p : places()) {
+      final int[] local = at(p, () -> runs.getRemote(here(), allIndices(n)));
+      for (int i = 0; i < n; i++) {
+        total[i] += local[i];
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      assertEquals(1, total[i], "index " + i + " should run once.");
+    }
+    final MultipleException e =
+        assertThrows(
+            MultipleException.class,
+            () ->
+                forEach(
+                    places(),
+                    0,
+                    n,
+                    i -> {
+                      if (i == n - 1) {
+                        throw new IllegalStateException("expected failure");
+                      }
+                    }));
+    assertEquals(1, e.getSuppressed().length);
+    assertTrue(e.getSuppressed()[0] instanceof IllegalStateException);
+  }
+
+  @Test
+  @DisplayName("Testing forEach over a range wider than Long.MAX_VALUE")
+  void shouldSplitRangeWiderThanMaxLong() {
+    final long from = Long.MIN_VALUE + 10;
+    final long to = Long.MAX_VALUE - 10;
+    // every task stops at its first index, so the loops end after one index per task
+    final SerializableLongConsumer body =
+        i -> {
+          if (i < from || i >= to) {
+            throw new IndexOutOfBoundsException(Long.toString(i));
+          }
+          throw new IllegalStateException("expected failure");
+        };
+    for (final MultipleException e :
+        new MultipleException[] {
+          assertThrows(MultipleException.class, () -> forEach(from, to, body)),
+          assertThrows(MultipleException.class, () -> forEach(places(), from, to, body))
+        }) {
+      assertTrue(e.getSuppressed().length > 0);
+      for (final Throwable t : e.getSuppressed()) {
+        assertTrue(t instanceof IllegalStateException, "index out of range: " + t.getMessage());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testing asyncAny tasks running under the enclosing finish")
+  void shouldCountAsyncAnyTasksInFinish() {
+    final PlaceLocalIntArray runs = PlaceLocalIntArray.make(places(), 1);
+    final int n = 200;
+    finish(
+        () -> {
+          for (int i = 0; i < n; i++) {
+            asyncAny(
+                () -> {
+                  Thread.sleep(1);
+                  runs.addAt(here(), 0, 1);
+                });
+          }
+          final List<SerializableJob> jobs = new ArrayList<>();
+          for (int i = 0; i < n; i++) {
+            jobs.add(
+                () -> {
+                  Thread.sleep(1);
+                  runs.addAt(here(), 0, 1);
+                });
+          }
+          asyncAny(jobs);
+        });
+    int total = 0;
+    for (final Place p : places()) {
+      total += at(p, () -> runs.get(0));
+    }
+    assertEquals(2 * n, total, "every task should run before the finish completes.");
+  }
+
+  /** A resilient place local object holding one value per place. */
+  static final class BackedUpValue extends ResilientPlaceLocalObject<Long> {
+
+    final AtomicLong value = new AtomicLong();
+
+    @Override
+    protected Long snapshot() {
+      return value.get();
+    }
+  }
+
+  @Test
+  @DisplayName("Testing backups of resilient place local objects at the next place")
+  void shouldReadBackBackupFromNextPlace() {
+    final BackedUpValue object = PlaceLocalObject.make(places(), BackedUpValue::new);
+    finish(
+        () ->
+            asyncAtAll(
+                places(),
+                () -> {
+                  object.value.set(10L * here().id);
+                  object.backup();
+                }));
+    for (final Place p : places()) {
+      assertEquals(10L * p.id, object.getBackup(p), "the backup of " + p + " should be found.");
+    }
+    // a later asynchronous backup replaces the previous snapshot
+    final Place testPlace = places().get(1);
+    at(
+        testPlace,
+        () -> {
+          object.value.set(-1);
+          object.asyncBackup();
+        });
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (object.getBackup(testPlace) != -1 && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+    assertEquals(-1L, object.getBackup(testPlace), "asyncBackup should reach the next place.");
+    // the snapshot is held by the next place only
+    final Place buddy = nextPlace(testPlace);
+    at(buddy, () -> object.discardBackup(testPlace));
+    assertEquals(null, object.getBackup(testPlace));
+  }
+
+  @Test
+  @DisplayName("Testing range accesses and forEach on block and cyclic distributed arrays")
+  void shouldAccessRangesOfDistributedArrays() {
+    final int n = 1000;
+    for (final Distribution dist :
+        new Distribution[] {
+          Distribution.block(places(), n),
+          Distribution.cyclic(places(), n),
+          Distribution.blockCyclic(places(), n, 3)
+        }) {
+      final DistLongArray array = DistLongArray.make(dist);
+      final long[] values = new long[n];
+      for (int i = 0; i < n; i++) {
+        values[i] = 3L * i;
+      }
+      array.put(0, values);
+      for (final Place p : places()) {
+        final boolean mapped =
+            at(
+                p,
+                () -> {
+                  for (int j = 0; j < array.localLength(); j++) {
+                    if (array.getLocal(j) != 3 * array.globalIndex(j)) {
+                      return false;
+                    }
+                  }
+                  return true;
+                });
+        assertTrue(mapped, "put should reach the owner of each index at " + p);
+      }
+      final long[] slice = array.get(17, 733);
+      for (int i = 17; i < 733; i++) {
+        assertEquals(3L * i, slice[i - 17]);
+      }
+      final long[] update = new long[250];
+      for (int i = 0; i < update.length; i++) {
+        update[i] = -100 - i;
+      }
+      array.put(100, update);
+      array.forEach(i -> array.set(i, array.get(i) + 1));
+      final long[] all = array.get(0, n);
+      for (int i = 0; i < n; i++) {
+        final long expected = i >= 100 && i < 350 ? -i + 1 : 3L * i + 1;
+        assertEquals(expected, all[i], "index " + i + " of " + dist.blockSize() + "-blocks");
+      }
+      assertEquals(0, array.get(n, n).length);
+      assertThrows(IndexOutOfBoundsException.class, () -> array.get(990, n + 1));
+    }
+  }
+
+  @Test
+  @DisplayName("Testing range accesses on a cyclic distributed array of objects")
+  void shouldAccessRangesOfCyclicObjectArray() {
+    final int n = 100;
+    final DistArray<String> array = DistArray.make(Distribution.cyclic(places(), n));
+    final List<String> values = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      values.add("v" + i);
+    }
+    array.put(30, values);
+    final List<String> read = array.get(25, 75);
+    for (int i = 25; i < 75; i++) {
+      assertEquals(i < 30 || i >= 70 ? null : "v" + (i - 30), read.get(i - 25));
+    }
+    assertEquals("v0", at(array.owner(30), () -> array.get(30)));
+  }
+
+  @Test
+  @DisplayName("Testing DistHashMap bulk operations across rebalances")
+  void shouldKeepDistHashMapEntriesAcrossRebalance() {
+    final DistHashMap<Integer, String> map = DistHashMap.make();
+    final HashMap<Integer, String> entries = new HashMap<>();
+    for (int i = 0; i < 500; i++) {
+      entries.put(i, "v" + i);
+    }
+    map.putAll(entries);
+    assertEquals(entries, map.getAll(entries.keySet()));
+    assertEquals(entries.size(), map.size());
+    // shrink to places excluding the home place, then grow back to all places
+    final ArrayList<Place> others = new ArrayList<>(places());
+    others.remove(here());
+    others.remove(others.size() - 1);
+    for (final List<Place> members : List.of(others, new ArrayList<Place>(places()))) {
+      map.rebalance(members);
+      assertEquals(entries, map.getAll(entries.keySet()));
+      assertEquals(entries.size(), map.size());
+      for (final Place p : members) {
+        final boolean owned =
+            at(
+                p,
+                () -> {
+                  for (final Integer key : map.local().keySet()) {
+                    if (!map.owner(key).equals(here())) {
+                      return false;
+                    }
+                  }
+                  return true;
+                });
+        assertTrue(owned, p + " should only hold the keys it owns.");
+      }
+      for (int i = 0; i < 500; i += 50) {
+        final int key = i;
+        assertEquals("v" + key, map.get(key));
+        assertEquals("v" + key, at(members.get(0), () -> map.get(key)));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testing Broadcast push, pull, serialization and free")
+  void shouldCopyBroadcastValueOncePerPlace() throws Exception {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    // make pushes the value: changing it at home afterwards is not seen by the copies
+    final Broadcast<int[]> pushed = Broadcast.make(places(), new int[] {5});
+    pushed.value()[0] = 6;
+    for (final Place p : testPlaces) {
+      assertEquals(5, at(p, () -> pushed.value()[0]), "the copy at " + p + " should be pushed.");
+    }
+    // of lets each place pull the value on first access, then reuse its copy
+    final Broadcast<int[]> pulled = Broadcast.of(new int[] {1});
+    pulled.value()[0] = 2;
+    assertEquals(2, at(testPlace, () -> pulled.value()[0]));
+    pulled.value()[0] = 3;
+    assertEquals(2, at(testPlace, () -> pulled.value()[0]), "the copy should be reused.");
+    final Broadcast<int[]> empty = Broadcast.of(null);
+    assertTrue(at(testPlace, () -> empty.value() == null && empty.value() == null));
+    // the handle does not carry the value
+    final Broadcast<long[]> large = Broadcast.of(new long[100_000]);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(large);
+    }
+    assertTrue(bytes.size() < 1000, "the handle should serialize without the value.");
+    assertEquals(100_000, at(testPlace, () -> large.value().length));
+    // free removes the copies everywhere
+    for (final Broadcast<?> b : List.of(pushed, pulled, empty, large)) {
+      b.free();
+      assertThrows(BadPlaceException.class, b::value);
+      for (final Place p : testPlaces) {
+        final boolean freed =
+            at(
+                p,
+                () -> {
+                  try {
+                    b.value();
+                    return false;
+                  } catch (final BadPlaceException e) {
+                    return true;
+                  }
+                });
+        assertTrue(freed, b + " should be freed at " + p);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testing lazily-initialized place local objects failing at a remote place")
+  void shouldReportLazyInitializerFailureAtRemotePlace() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place testPlace = testPlaces.get(0);
+    final int home = here().id;
+    final LazyCounter counter =
+        PlaceLocalObject.makeLazy(
+            () -> {
+              if (here().id != home) {
+                throw new IllegalStateException("expected failure");
+              }
+              return new LazyCounter();
+            });
+    final MultipleException e =
+        assertThrows(
+            MultipleException.class,
+            () -> finish(() -> asyncAt(testPlace, () -> counter.value.incrementAndGet())));
+    assertEquals(1, e.getSuppressed().length);
+    assertThrows(
+        MultipleException.class, () -> at(testPlace, () -> counter.value.incrementAndGet()));
+    assertEquals(0, counter.value.get());
+  }
+
+  @Test
+  @DisplayName("Testing lazily-initialized place local objects whose initializer uses at")
+  void shouldRunBlockingLazyInitializerAtRemotePlace() {
+    final ArrayList<Place> testPlaces = new ArrayList<>(places());
+    testPlaces.remove(here());
+    final Place home = here();
+    final LazyCounter counter =
+        PlaceLocalObject.makeLazy(
+            () -> {
+              final LazyCounter c = new LazyCounter();
+              c.value.set(at(home, () -> 7));
+              return c;
+            });
+    finish(
+        () -> {
+          for (final Place p : testPlaces) {
+            for (int i = 0; i < 4; i++) {
+              asyncAt(p, () -> counter.value.incrementAndGet());
+            }
+          }
+        });
+    for (final Place p : testPlaces) {
+      assertEquals(11, at(p, () -> counter.value.get()));
+    }
+  }
+
+  /** A bag of nodes of a complete tree, counted by depth. */
+  static final class TreeBag implements TaskBag {
+
+    private static final long serialVersionUID = 5209465818937062467L;
+
+    final long[] nodes;
+
+    TreeBag(long[] nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(Arrays.stream(nodes).sum(), Integer.MAX_VALUE);
+    }
+  }
+
+  /** A task queue counting the nodes of a complete tree. */
+  static final class TreeQueue implements TaskQueue<TreeBag, Long> {
+
+    /** Counted down when place 0 starts processing nodes. */
+    static volatile CountDownLatch started = new CountDownLatch(1);
+
+    final int arity;
+
+    final long[] nodes;
+
+    long count;
+
+    TreeQueue(int depth, int arity) {
+      this.arity = arity;
+      nodes = new long[depth + 1];
+    }
+
+    static long size(int depth, int arity) {
+      long size = 0;
+      for (long level = 1, d = 0; d <= depth; d++, level *= arity) {
+        size += level;
+      }
+      return size;
+    }
+
+    @Override
+    public boolean process(int n) {
+      if (here().id == 0) {
+        started.countDown();
+      }
+      int d = nodes.length - 1;
+      for (int i = 0; i < n; i++) {
+        while (d >= 0 && nodes[d] == 0) {
+          d--;
+        }
+        if (d < 0) {
+          return false;
+        }
+        nodes[d]--;
+        count++;
+        if (d + 1 < nodes.length) {
+          nodes[++d] += arity;
+        }
+      }
+      return Arrays.stream(nodes).anyMatch(c -> c > 0);
+    }
+
+    @Override
+    public TreeBag split() {
+      final long[] half = new long[nodes.length];
+      boolean any = false;
+      for (int d = 0; d < nodes.length; d++) {
+        half[d] = nodes[d] / 2;
+        nodes[d] -= half[d];
+        any |= half[d] > 0;
+      }
+      return any ? new TreeBag(half) : null;
+    }
+
+    @Override
+    public void merge(TreeBag bag) {
+      for (int d = 0; d < nodes.length; d++) {
+        nodes[d] += bag.nodes[d];
+      }
+    }
+
+    @Override
+    public Long result() {
+      return count;
+    }
+  }
+
+  @Test
+  @DisplayName("Testing the global load balancer counting the nodes of a tree across places")
+  void shouldCountTreeNodesWithGlobalLoadBalancer() {
+    final int depth = 9;
+    final int arity = 4;
+    final GlobalLoadBalancer<TreeBag, Long> glb =
+        new GlobalLoadBalancer<>(() -> new TreeQueue(depth, arity), Long::sum, 64, 1);
+    final long[] root = new long[depth + 1];
+    root[0] = 1;
+    final long size = TreeQueue.size(depth, arity);
+    assertEquals(size, glb.run(new TreeBag(root)));
+    // the results of the task queues accumulate across computations
+    assertEquals(2 * size, glb.run(new TreeBag(root)));
+  }
+
+  @Test
+  @DisplayName("Testing the global load balancer when places leave during a computation")
+  void shouldCountTreeNodesWhenPlacesLeave() throws InterruptedException {
+    final int depth = 11;
+    final int arity = 4;
+    final GlobalLoadBalancer<TreeBag, Long> glb =
+        new GlobalLoadBalancer<>(() -> new TreeQueue(depth, arity), Long::sum, 64, 1);
+    final long[] root = new long[depth + 1];
+    root[0] = 1;
+    final AtomicLong result = new AtomicLong();
+    final List<Place> leaving = new ArrayList<>();
+    TreeQueue.started = new CountDownLatch(1);
+    finish(
+        () -> {
+          async(() -> result.set(glb.run(new TreeBag(root))));
+          TreeQueue.started.await();
+          leaving.addAll(glb.malleableHandler().preShrink(2));
+        });
+    assertEquals(2, leaving.size());
+    assertEquals(TreeQueue.size(depth, arity), result.get());
+  }
+
+  private static int[] allIndices(int n) {
+    final int[] indices = new int[n];
+    for (int i = 0; i < n; i++) {
+      indices[i] = i;
+    }
+    return indices;
+  }
 }
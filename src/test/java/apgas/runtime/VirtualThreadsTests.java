@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.runtime;
+
+import static apgas.Constructs.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import apgas.Configuration;
+import apgas.GlobalRuntime;
+import apgas.Place;
+import apgas.impl.Worker;
+import apgas.util.PlaceLocalIntArray;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+/** Runs tasks on virtual threads, which requires the Java 21 classes of the java21 profile. */
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadsTests {
+
+  @BeforeAll
+  static void beforeAll() {
+    Configuration.CONFIG_APGAS_THREADS.setDefaultValue(2);
+    Configuration.CONFIG_APGAS_PLACES.setDefaultValue(3);
+    Configuration.CONFIG_APGAS_VIRTUAL_THREADS.set(true);
+
+    GlobalRuntime.getRuntime();
+  }
+
+  /** Returns 1 if the current thread runs tasks for the virtual-thread executor, 0 otherwise. */
+  private static int onVirtualThread() {
+    final Thread thread = Thread.currentThread();
+    return !(thread instanceof Worker) && thread.getName().startsWith("apgas-virtual-") ? 1 : 0;
+  }
+
+  @Test
+  @DisplayName("Testing async and asyncAt running on virtual threads")
+  void shouldRunTasksOnVirtualThreads() {
+    final PlaceLocalIntArray virtual = PlaceLocalIntArray.make(places(), 2);
+    finish(
+        () -> {
+          for (final Place p : places()) {
+            asyncAt(
+                p,
+                () -> {
+                  virtual.addAt(here(), 0, onVirtualThread());
+                  async(() -> virtual.addAt(here(), 1, onVirtualThread()));
+                });
+          }
+        });
+    for (final Place p : places()) {
+      assertEquals(1, at(p, () -> virtual.get(0)), "asyncAt should run on a virtual thread.");
+      assertEquals(1, at(p, () -> virtual.get(1)), "async should run on a virtual thread.");
+    }
+  }
+
+  @Test
+  @DisplayName("Testing nested finish parking a virtual thread until remote tasks complete")
+  void shouldParkVirtualThreadInNestedFinish() {
+    final PlaceLocalIntArray done = PlaceLocalIntArray.make(places(), 1);
+    final AtomicInteger inline = new AtomicInteger();
+    final int n = 50;
+    final Place home = here();
+    finish(
+        () ->
+            async(
+                () -> {
+                  final Thread thread = Thread.currentThread();
+                  // the body of the nested finish runs inline on the virtual thread
+                  finish(
+                      () -> {
+                        if (Thread.currentThread() == thread) {
+                          inline.incrementAndGet();
+                        }
+                        for (int i = 0; i < n; i++) {
+                          asyncAt(
+                              places().get(i % places().size()),
+                              () -> {
+                                Thread.sleep(10);
+                                done.fetchAdd(home, 0, 1);
+                              });
+                        }
+                      });
+                  // the virtual thread resumes only once the remote tasks have completed
+                  assertEquals(n, done.get(0));
+                  assertEquals(1, onVirtualThread());
+                }));
+    assertEquals(n, done.get(0));
+    assertEquals(1, inline.get(), "the finish body should run on the parked thread.");
+  }
+}
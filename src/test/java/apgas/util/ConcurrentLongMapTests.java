@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentLongMapTests {
+
+  @Test
+  @DisplayName("Testing put, get and remove")
+  void shouldPutGetAndRemove() {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    assertNull(map.get(42));
+    assertNull(map.put(42, "a"));
+    assertNull(map.put(-1, "b"));
+    assertNull(map.put(Long.MAX_VALUE, "c"));
+    assertEquals("a", map.get(42));
+    assertEquals("b", map.get(-1));
+    assertEquals("c", map.get(Long.MAX_VALUE));
+    assertEquals(3, map.size());
+    assertEquals("a", map.put(42, "d"));
+    assertEquals("d", map.get(42));
+    assertEquals(3, map.size());
+    assertEquals("d", map.remove(42));
+    assertNull(map.get(42));
+    assertNull(map.remove(42));
+    assertNull(map.remove(7));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  @DisplayName("Testing putIfAbsent on present and removed keys")
+  void shouldPutIfAbsentOnRemovedKey() {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    assertNull(map.putIfAbsent(5, "a"));
+    assertEquals("a", map.putIfAbsent(5, "b"));
+    assertEquals("a", map.get(5));
+    map.remove(5);
+    assertEquals(0, map.size());
+    assertNull(map.putIfAbsent(5, "c"), "a removed key should have no value");
+    assertEquals("c", map.get(5));
+    assertEquals(1, map.size());
+    assertEquals("c", map.putIfAbsent(5, "d"));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  @DisplayName("Testing conditional remove")
+  void shouldRemoveOnlyExpectedValue() {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    final Object value = new Object();
+    map.put(9, value);
+    assertFalse(map.remove(9, new Object()));
+    assertSame(value, map.get(9));
+    assertFalse(map.remove(10, value));
+    assertTrue(map.remove(9, value));
+    assertNull(map.get(9));
+    assertFalse(map.remove(9, value), "a removed value should not be removed twice");
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  @DisplayName("Testing the reserved key")
+  void shouldRejectReservedKey() {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    for (long key = 0; key < 100; key++) {
+      map.put(key, key);
+    }
+    assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, "a"));
+    assertThrows(IllegalArgumentException.class, () -> map.putIfAbsent(Long.MIN_VALUE, "a"));
+    assertNull(map.get(Long.MIN_VALUE));
+    assertNull(map.remove(Long.MIN_VALUE));
+    assertFalse(map.remove(Long.MIN_VALUE, "a"));
+    assertEquals(100, map.size());
+  }
+
+  @Test
+  @DisplayName("Testing resize under many removed keys")
+  void shouldResizeUnderManyTombstones() {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    for (long key = 0; key < 10; key++) {
+      map.put(-key - 1, "live");
+    }
+    // each distinct key leaves a removed slot behind until the table is resized
+    for (long key = 0; key < 200_000; key++) {
+      assertNull(map.put(key, key));
+      if (key >= 5) {
+        assertEquals(key - 5, map.remove(key - 5));
+      }
+    }
+    assertEquals(15, map.size());
+    for (long key = 0; key < 10; key++) {
+      assertEquals("live", map.get(-key - 1));
+    }
+    for (long key = 0; key < 200_000 - 5; key += 997) {
+      assertNull(map.get(key));
+    }
+    for (long key = 200_000 - 5; key < 200_000; key++) {
+      assertEquals(key, map.get(key));
+    }
+  }
+
+  @Test
+  @DisplayName("Testing concurrent readers during resizes")
+  void shouldFindKeysDuringConcurrentResizes() throws InterruptedException {
+    final ConcurrentLongMap map = new ConcurrentLongMap();
+    final int stable = 1000;
+    for (long key = 0; key < stable; key++) {
+      map.put(key, key);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicInteger failures = new AtomicInteger();
+    final List<Thread> readers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Thread reader =
+          new Thread(
+              () -> {
+                while (!done.get()) {
+                  for (long key = 0; key < stable; key++) {
+                    if (!Long.valueOf(key).equals(map.get(key))) {
+                      failures.incrementAndGet();
+                    }
+                  }
+                }
+              });
+      readers.add(reader);
+      reader.start();
+    }
+    final AtomicInteger kept = new AtomicInteger(stable);
+    final Thread writer =
+        new Thread(
+            () -> {
+              for (long key = stable; key < 300_000; key++) {
+                map.put(key, key);
+                if (key % 3 == 0) {
+                  map.remove(key);
+                } else {
+                  kept.incrementAndGet();
+                }
+              }
+            });
+    writer.start();
+    writer.join();
+    done.set(true);
+    for (final Thread reader : readers) {
+      reader.join();
+    }
+    assertEquals(0, failures.get(), "stable keys should always be found");
+    assertEquals(kept.get(), map.size());
+  }
+
+  @Test
+  @DisplayName("Testing the home of global IDs with negative local IDs")
+  void shouldDecodeHomeOfNegativeLocalIds() {
+    final int[] homes = {0, 1, 7, 65536, Integer.MAX_VALUE};
+    final int[] lids = {Integer.MIN_VALUE, -2, -1, 0, 1, Integer.MAX_VALUE};
+    for (final int home : homes) {
+      for (final int lid : lids) {
+        final long gid = GlobalID.gid(home, lid);
+        assertEquals(home, GlobalID.home(gid), "home of " + home + ":" + lid);
+        assertNotEquals(Long.MIN_VALUE, gid, "a global ID should never be the reserved key");
+      }
+    }
+    assertNotEquals(GlobalID.gid(1, -1), GlobalID.gid(0, Integer.MAX_VALUE));
+    assertNotEquals(GlobalID.gid(0, -1), GlobalID.gid(1, -1));
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import apgas.Place;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DistributionTests {
+
+  /**
+   * Returns a list of places with non-consecutive IDs.
+   *
+   * @param n the number of places
+   * @return the places
+   */
+  private static List<Place> places(int n) {
+    final List<Place> places = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      places.add(new Place(2 * i + 1));
+    }
+    return places;
+  }
+
+  /**
+   * Checks that the distribution maps each index to exactly one slot of the local array of its
+   * owner and that local arrays are fully used.
+   *
+   * @param d the distribution to check
+   */
+  private static void checkBijection(Distribution d) {
+    final int n = d.size();
+    final boolean[][] used = new boolean[n][];
+    long total = 0;
+    for (int rank = 0; rank < n; rank++) {
+      used[rank] = new boolean[(int) d.localLength(rank)];
+      total += used[rank].length;
+    }
+    assertEquals(d.length(), total, "local lengths should add up to the length");
+    for (long index = 0; index < d.length(); index++) {
+      final int rank = d.rank(index);
+      final int local = d.localIndex(index);
+      assertEquals(d.id(rank), d.owner(index).id);
+      assertTrue(local >= 0 && local < used[rank].length, "local index out of range");
+      assertTrue(!used[rank][local], "local index used twice");
+      used[rank][local] = true;
+      assertEquals(index, d.globalIndex(rank, local));
+    }
+  }
+
+  @Test
+  @DisplayName("Testing index math of block, cyclic and block-cyclic distributions")
+  void shouldMapEveryIndexToOneLocalSlot() {
+    for (int n = 1; n <= 5; n++) {
+      for (long length = 0; length <= 23; length++) {
+        checkBijection(Distribution.block(places(n), length));
+        checkBijection(Distribution.cyclic(places(n), length));
+        for (long blockSize = 1; blockSize <= 4; blockSize++) {
+          checkBijection(Distribution.blockCyclic(places(n), length, blockSize));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testing block distribution with a length not divisible by the place count")
+  void shouldBalanceBlockDistribution() {
+    final Distribution d = Distribution.block(places(3), 10);
+    assertEquals(4, d.blockSize());
+    assertEquals(4, d.localLength(new Place(1)));
+    assertEquals(4, d.localLength(new Place(3)));
+    assertEquals(2, d.localLength(new Place(5)));
+    assertEquals(new Place(1), d.owner(3));
+    assertEquals(new Place(3), d.owner(4));
+    assertEquals(new Place(5), d.owner(9));
+    assertEquals(1, d.localIndex(9));
+  }
+
+  @Test
+  @DisplayName("Testing block distribution with fewer indices than places")
+  void shouldLeaveTrailingPlacesEmpty() {
+    final Distribution d = Distribution.block(places(4), 2);
+    assertEquals(1, d.blockSize());
+    assertEquals(1, d.localLength(new Place(1)));
+    assertEquals(1, d.localLength(new Place(3)));
+    assertEquals(0, d.localLength(new Place(5)));
+    assertEquals(0, d.localLength(new Place(7)));
+  }
+
+  @Test
+  @DisplayName("Testing cyclic distribution")
+  void shouldDealIndicesRoundRobin() {
+    final Distribution d = Distribution.cyclic(places(3), 7);
+    final int[] owners = new int[7];
+    final int[] locals = new int[7];
+    for (int i = 0; i < 7; i++) {
+      owners[i] = d.owner(i).id;
+      locals[i] = d.localIndex(i);
+    }
+    assertArrayEquals(new int[] {1, 3, 5, 1, 3, 5, 1}, owners);
+    assertArrayEquals(new int[] {0, 0, 0, 1, 1, 1, 2}, locals);
+    assertEquals(3, d.localLength(new Place(1)));
+    assertEquals(2, d.localLength(new Place(5)));
+  }
+
+  @Test
+  @DisplayName("Testing block-cyclic distribution with a partial last block")
+  void shouldTruncateLastBlock() {
+    final Distribution d = Distribution.blockCyclic(places(2), 11, 3);
+    // blocks: [0,3) -> 1, [3,6) -> 3, [6,9) -> 1, [9,11) -> 3
+    assertEquals(6, d.localLength(new Place(1)));
+    assertEquals(5, d.localLength(new Place(3)));
+    assertEquals(new Place(3), d.owner(10));
+    assertEquals(4, d.localIndex(10));
+    assertEquals(5, d.localIndex(8));
+  }
+
+  @Test
+  @DisplayName("Testing distributions over a single place")
+  void shouldMapEverythingToSinglePlace() {
+    for (final Distribution d :
+        new Distribution[] {
+          Distribution.block(places(1), 9),
+          Distribution.cyclic(places(1), 9),
+          Distribution.blockCyclic(places(1), 9, 4)
+        }) {
+      assertEquals(9, d.localLength(new Place(1)));
+      for (int i = 0; i < 9; i++) {
+        assertEquals(new Place(1), d.owner(i));
+        assertEquals(i, d.localIndex(i));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testing invalid distributions and indices")
+  void shouldRejectInvalidArguments() {
+    final Distribution d = Distribution.block(places(2), 4);
+    assertThrows(IndexOutOfBoundsException.class, () -> d.owner(4));
+    assertThrows(IndexOutOfBoundsException.class, () -> d.owner(-1));
+    assertEquals(0, d.localLength(new Place(0)));
+    assertThrows(IllegalArgumentException.class, () -> Distribution.block(places(0), 4));
+    assertThrows(IllegalArgumentException.class, () -> Distribution.cyclic(places(2), -1));
+    assertThrows(
+        IllegalArgumentException.class, () -> Distribution.blockCyclic(places(2), 4, 0));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023 Wagomu project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ */
+package apgas.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TeamTests {
+
+  @Test
+  @DisplayName("Testing the element-wise combination of double arrays")
+  void shouldCombineDoublesElementWise() {
+    final double[] a = {1.5, -2, 7};
+    final double[] b = {0.5, 3, -7};
+    assertArrayEquals(new double[] {2, 1, 0}, Team.doubles(Team.Operation.SUM).apply(a, b));
+    assertArrayEquals(new double[] {0.5, -2, -7}, Team.doubles(Team.Operation.MIN).apply(a, b));
+    assertArrayEquals(new double[] {1.5, 3, 7}, Team.doubles(Team.Operation.MAX).apply(a, b));
+    assertArrayEquals(new double[] {1.5, -2, 7}, a, "operands should not be modified");
+  }
+
+  @Test
+  @DisplayName("Testing the element-wise combination of long arrays")
+  void shouldCombineLongsElementWise() {
+    final long[] a = {Long.MAX_VALUE, -2, 7};
+    final long[] b = {0, 3, Long.MIN_VALUE};
+    assertArrayEquals(
+        new long[] {Long.MAX_VALUE, 1, Long.MIN_VALUE + 7},
+        Team.longs(Team.Operation.SUM).apply(a, b));
+    assertArrayEquals(
+        new long[] {0, -2, Long.MIN_VALUE}, Team.longs(Team.Operation.MIN).apply(a, b));
+    assertArrayEquals(
+        new long[] {Long.MAX_VALUE, 3, 7}, Team.longs(Team.Operation.MAX).apply(a, b));
+    assertArrayEquals(new long[0], Team.longs(Team.Operation.SUM).apply(new long[0], new long[0]));
+  }
+
+  @Test
+  @DisplayName("Testing the merge of all-gather slots")
+  void shouldMergeSlotsPreferringFirstOperand() {
+    final Object[] a = {"a0", null, null, "a3"};
+    final Object[] b = {null, "b1", null, "b3"};
+    assertArrayEquals(new Object[] {"a0", "b1", null, "a3"}, Team.merge(a, b));
+    assertArrayEquals(new Object[] {"a0", null, null, "a3"}, a, "operands should not be modified");
+    // merging in any order yields the same result when slots are disjoint
+    final Object[] c = {null, null, "c2", null};
+    final Object[] d = {null, "d1", null, null};
+    assertArrayEquals(
+        Team.merge(Team.merge(a, d), c), Team.merge(c, Team.merge(d, a)), "merge should commute");
+  }
+
+  @Test
+  @DisplayName("Testing the block length of all-to-all exchanges")
+  void shouldSplitIntoEqualBlocks() {
+    assertEquals(3, Team.blockLength(12, 4));
+    assertEquals(0, Team.blockLength(0, 5));
+    assertEquals(7, Team.blockLength(7, 1));
+    assertThrows(IllegalArgumentException.class, () -> Team.blockLength(10, 4));
+    assertThrows(IllegalArgumentException.class, () -> Team.blockLength(2, 3));
+  }
+}